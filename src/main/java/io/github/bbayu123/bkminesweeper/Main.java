@@ -18,32 +18,58 @@
 package io.github.bbayu123.bkminesweeper;
 
 import java.awt.Dimension;
-import java.awt.Point;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.UUID;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.util.Vector;
 
 import com.bergerkiller.bukkit.common.events.map.MapClickEvent;
 import com.bergerkiller.bukkit.common.events.map.MapKeyEvent;
-import com.bergerkiller.bukkit.common.events.map.MapStatusEvent;
 import com.bergerkiller.bukkit.common.map.MapCanvas;
 import com.bergerkiller.bukkit.common.map.MapColorPalette;
 import com.bergerkiller.bukkit.common.map.MapDisplay;
 import com.bergerkiller.bukkit.common.map.MapDisplayProperties;
-import com.bergerkiller.bukkit.common.map.MapEventPropagation;
 import com.bergerkiller.bukkit.common.map.MapFont;
 import com.bergerkiller.bukkit.common.map.MapPlayerInput;
 import com.bergerkiller.bukkit.common.map.MapSessionMode;
@@ -67,24 +93,57 @@ import com.bergerkiller.bukkit.common.utils.ItemUtil;
  */
 public class Main extends JavaPlugin {
 	private MapTexture flagTextureNormal = null, flagTextureTiny = null;
+	private MinesweeperTileSprites tileSprites = null;
+	private List<MinesweeperDifficulty> difficulties = MinesweeperDifficulty.DEFAULTS;
+	private long noGuessBudget = 0L;
+	private long heatmapBudget = 0L;
+	private MinesweeperPool pool = null;
 
 	/**
 	 * {@inheritDoc}
 	 * <p>
 	 * What we are doing here is linking the command executor to our plugin, as well
 	 * as loading some map textures that we will be using later. See
-	 * {@link #loadTexture(String)} as to how the textures are loaded.
+	 * {@link #loadTexture(String)} as to how the textures are loaded. The textures
+	 * are then used to set up the tile sprites shared by every display.
+	 * <p>
+	 * The difficulties that can be played are read from the configuration, which
+	 * is created from the default one on first start. A pool of boards is kept
+	 * ready for each of them, see {@link MinesweeperPool}.
 	 */
 	@Override
 	public void onEnable() {
 		this.getCommand("minesweeper").setExecutor(this);
 
+		this.saveDefaultConfig();
+		this.difficulties = MinesweeperDifficulty.load(this.getConfig().getConfigurationSection("difficulties"),
+				this.getLogger());
+		this.noGuessBudget = TimeUnit.MILLISECONDS.toNanos(this.getConfig().getLong("no-guess-budget", 2000L));
+		this.heatmapBudget = TimeUnit.MILLISECONDS.toNanos(this.getConfig().getLong("heatmap-budget", 500L));
+		this.pool = new MinesweeperPool(this.difficulties, this.getConfig().getInt("pool.size", 8),
+				this.getConfig().getInt("pool.low-water", 4), this.noGuessBudget, this.getLogger());
+
 		try {
 			this.flagTextureNormal = this.loadTexture("icons/flag_normal.png");
 			this.flagTextureTiny = this.loadTexture("icons/flag_tiny.png");
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+
+		this.tileSprites = new MinesweeperTileSprites(this.flagTextureNormal, this.flagTextureTiny);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * We stop refilling the board pool here.
+	 */
+	@Override
+	public void onDisable() {
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
 	}
 
 	/**
@@ -95,6 +154,17 @@ public class Main extends JavaPlugin {
 	 * <p>
 	 * When the player does {@code /minesweeper get}, then we create the map item
 	 * using {@link MapDisplay#createMapItem(Class)}, and give this to the player.
+	 * When a seed is given as well, written in hexadecimal like it is shown at the
+	 * end of a game, every game on that map is generated from that seed.
+	 * <p>
+	 * When the player does {@code /minesweeper pool}, we show how many boards are
+	 * ready for each difficulty, and how often games could use one.
+	 * <p>
+	 * When the player does {@code /minesweeper hint}, we look for a hint on the
+	 * game held by the player, using {@link MapDisplay#getHeldDisplay(Player, Class)}
+	 * to find it. The hint is sent to the player once it is found. In the same
+	 * way, {@code /minesweeper heatmap} turns the mine heatmap of the held game on
+	 * or off.
 	 * <p>
 	 * If we need to pass in parameters/properties to the display, we use
 	 * {@link ItemUtil#getMetaTag(ItemStack)} and then call
@@ -114,11 +184,45 @@ public class Main extends JavaPlugin {
 			return false;
 		}
 		if (args[0].equalsIgnoreCase("get")) {
+			Long seed = null;
+			if (args.length >= 2) {
+				try {
+					seed = Long.parseUnsignedLong(args[1], 16);
+				} catch (NumberFormatException e) {
+					player.sendMessage(ChatColor.RED + "Invalid seed: " + args[1]);
+					return true;
+				}
+			}
+
 			ItemStack item = MapDisplay.createMapItem(Minesweeper.class);
 			ItemUtil.getMetaTag(item).putValue("owner", player.getUniqueId());
+			if (seed != null) {
+				ItemUtil.getMetaTag(item).putValue("seed", seed);
+			}
 			ItemUtil.setDisplayName(item, "Minesweeper");
 			player.getInventory().addItem(item);
 			player.sendMessage(ChatColor.GREEN + "Obtained Minesweeper");
+		} else if (args[0].equalsIgnoreCase("pool")) {
+			for (MinesweeperDifficulty difficulty : this.difficulties) {
+				long requests = this.pool.requests(difficulty), hits = this.pool.hits(difficulty);
+				player.sendMessage(String.format("%s%s%s: %d/%d ready, %.1f%% hit rate (%d/%d)", ChatColor.GOLD,
+						difficulty.name(), ChatColor.RESET, this.pool.available(difficulty), this.pool.size(),
+						requests == 0 ? 0.0 : hits * 100.0 / requests, hits, requests));
+			}
+		} else if (args[0].equalsIgnoreCase("hint")) {
+			Minesweeper display = MapDisplay.getHeldDisplay(player, Minesweeper.class);
+			if (display == null) {
+				player.sendMessage(ChatColor.RED + "You must be holding a Minesweeper map!");
+				return true;
+			}
+			display.requestHint(player);
+		} else if (args[0].equalsIgnoreCase("heatmap")) {
+			Minesweeper display = MapDisplay.getHeldDisplay(player, Minesweeper.class);
+			if (display == null) {
+				player.sendMessage(ChatColor.RED + "You must be holding a Minesweeper map!");
+				return true;
+			}
+			display.toggleHeatmap(player);
 		}
 		return true;
 	}
@@ -193,6 +297,55 @@ public class Main extends JavaPlugin {
 		return this.flagTextureTiny;
 	}
 
+	/**
+	 * Gets the tile sprites
+	 * <p>
+	 * These are the sprites that were set up in {@link #onEnable()}.
+	 *
+	 * @return the tile sprites
+	 */
+	private MinesweeperTileSprites getTileSprites() {
+		return this.tileSprites;
+	}
+
+	/**
+	 * Gets the difficulties that can be played
+	 *
+	 * @return the difficulties, in the order they are configured
+	 */
+	private List<MinesweeperDifficulty> getDifficulties() {
+		return this.difficulties;
+	}
+
+	/**
+	 * Gets how long to look for a board that can be solved without guessing,
+	 * before falling back to a random board
+	 *
+	 * @return the time budget, in nanoseconds
+	 */
+	private long getNoGuessBudget() {
+		return this.noGuessBudget;
+	}
+
+	/**
+	 * Gets how long to spend working out the mine heatmap of a board, before giving
+	 * up on it
+	 *
+	 * @return the time budget, in nanoseconds
+	 */
+	private long getHeatmapBudget() {
+		return this.heatmapBudget;
+	}
+
+	/**
+	 * Gets the pool of boards generated ahead of time
+	 *
+	 * @return the board pool
+	 */
+	private MinesweeperPool getPool() {
+		return this.pool;
+	}
+
 	/**
 	 * This is the main driver class for the Minesweeper game
 	 * <p>
@@ -208,9 +361,14 @@ public class Main extends JavaPlugin {
 	 */
 	public static class Minesweeper extends MapDisplay {
 		/**
-		 * Whether walking by sneaking is enabled or not.
+		 * The number of ticks between checks for changes to save
+		 */
+		private static final int SNAPSHOT_INTERVAL = 20;
+		/**
+		 * How far a sneak walking viewer is moved every tick while holding a movement
+		 * key, in blocks, which is about the speed of sneaking
 		 */
-		private boolean sneakWalking = false;
+		private static final double SNEAK_WALK_SPEED = 0.065;
 
 		/**
 		 * Holds the minesweeper board.
@@ -223,6 +381,38 @@ public class Main extends JavaPlugin {
 		@SuppressWarnings("unused")
 		private UUID owner = null;
 
+		/**
+		 * The seed every game on this display is generated from, or {@code null} to
+		 * use a new random seed for every game
+		 */
+		private Long seed = null;
+
+		/**
+		 * The sessions of every viewer of this display
+		 */
+		private final MinesweeperSessions sessions = new MinesweeperSessions();
+		/**
+		 * The location of a viewer, reused every tick to avoid allocating
+		 */
+		private final Location lookLocation = new Location(null, 0, 0, 0);
+		/**
+		 * The input passed to the board, reused for every input to avoid allocating
+		 */
+		private final MinesweeperInput input = new MinesweeperInput();
+		/**
+		 * The sounds requested since the last tick, played together at the end of
+		 * the tick
+		 */
+		private final MinesweeperSoundMixer sounds = new MinesweeperSoundMixer();
+		/**
+		 * The ticks left until the next check for changes to save
+		 */
+		private int snapshotTicks = Minesweeper.SNAPSHOT_INTERVAL;
+		/**
+		 * The revision of the game when it was last saved
+		 */
+		private long snapshotRevision = -1L;
+
 		/**
 		 * {@inheritDoc}
 		 * <p>
@@ -235,7 +425,8 @@ public class Main extends JavaPlugin {
 		 * Class)} to re-call them.
 		 * <p>
 		 * This method only sets up the behavior of the display. We use a separate
-		 * method to handle the content of the display.
+		 * method to handle the content of the display. If a game in progress was saved
+		 * into the properties, it is picked up again, see {@link MinesweeperSnapshot}.
 		 *
 		 * @see {@link MapDisplay#properties} for more information about the properties
 		 *      object
@@ -246,42 +437,194 @@ public class Main extends JavaPlugin {
 		@Override
 		public void onAttached() {
 			this.owner = this.properties.get("owner", UUID.class);
+			this.seed = this.properties.get("seed", Long.class);
 
 			this.setGlobal(true);
 			this.setUpdateWithoutViewers(false);
 			this.setSessionMode(MapSessionMode.VIEWING);
 			this.setMasterVolume(0.3f);
 			this.reload();
+
+			byte[] snapshot = this.properties.get("snapshot", byte[].class);
+			if (snapshot != null) {
+				try {
+					this.board.restore(
+							MinesweeperSnapshot.read(snapshot, ((Main) this.getPlugin()).getDifficulties()));
+				} catch (IllegalArgumentException e) {
+					this.getPlugin().getLogger().warning("Discarding invalid saved game: " + e.getMessage());
+					this.properties.set("snapshot", null);
+					this.reload();
+				}
+			}
+			this.snapshotRevision = this.board.getSnapshotRevision();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * We save the game in progress here, so that it can be picked up again when
+		 * the display is attached again.
+		 */
+		@Override
+		public void onDetached() {
+			this.saveSnapshot(true);
+		}
+
+		/**
+		 * Saves the game in progress into the properties, or removes the saved game
+		 * if there is no game in progress
+		 *
+		 * @param force whether to save even if nothing changed since the last save,
+		 *              which updates the time played
+		 */
+		private void saveSnapshot(boolean force) {
+			if (this.board == null) {
+				return;
+			}
+			long revision = this.board.getSnapshotRevision();
+			if (!force && revision == this.snapshotRevision) {
+				return;
+			}
+			this.snapshotRevision = revision;
+
+			byte[] snapshot = this.board.snapshot();
+			if (snapshot != null || this.properties.containsKey("snapshot")) {
+				this.properties.set("snapshot", snapshot);
+			}
 		}
 
 		/**
 		 * {@inheritDoc}
 		 * <p>
-		 * We use this method to do 2 things:
+		 * We use this method to do 5 things:
 		 * <ol>
-		 * <li>Override map input to allow walking while sneaking
-		 * <li>Update child widgets with the current position on the display that the
-		 * player is looking at
+		 * <li>Start a session for every new viewer, see {@link MinesweeperSessions}
+		 * <li>For every viewer in the order they joined, move them while they sneak
+		 * walk, or stop sneak walking once they stop sneaking, and update the board
+		 * with the position on the display they are looking at
+		 * <li>End the sessions of players that stopped viewing
+		 * <li>Every second, save the game into the properties if it changed, see
+		 * {@link MinesweeperBoard#getSnapshotRevision()}
+		 * <li>Play the sounds that were requested since the last tick
 		 * </ol>
+		 * Finding the position that a viewer is looking at is skipped while they do
+		 * not move or turn, and the board is only updated when they look at a
+		 * different tile.
 		 */
 		@Override
 		public void onTick() {
-			if (this.getViewers().size() == 0) {
+			List<Player> viewers = this.getViewers();
+			for (int i = 0; i < viewers.size(); i++) {
+				this.sessions.touch(viewers.get(i));
+			}
+
+			for (int slot = 0; slot < this.sessions.size(); slot++) {
+				Player player = this.sessions.player(slot);
+
+				// Allow walking around when sneaking
+				if (this.sessions.isSneakWalking(slot)) {
+					if (!player.isSneaking()) {
+						this.sessions.setSneakWalking(slot, false);
+					} else if (this.sessions.heldKeys(slot) != 0) {
+						this.sneakWalk(player, this.sessions.heldKeys(slot));
+					}
+				}
+
+				// Update the board with hover position
+				if (this.sessions.hasViewMoved(slot, this.lookLocation)) {
+					MapLookPosition lookPosition = this.findLookPosition(player);
+					if (lookPosition != null && this.sessions.hover(slot, lookPosition.getX(), lookPosition.getY(),
+							this.board.getTileAt(lookPosition.getX(), lookPosition.getY()))) {
+						this.handleInput(slot,
+								this.input.set(InputAction.HOVER, lookPosition.getX(), lookPosition.getY()));
+					}
+				}
+			}
+			this.sessions.prune();
+
+			if (--this.snapshotTicks <= 0) {
+				this.snapshotTicks = Minesweeper.SNAPSHOT_INTERVAL;
+				this.saveSnapshot(false);
+			}
+
+			this.sounds.flush(this);
+		}
+
+		/**
+		 * Hands an input from a viewer to the board, and remembers the tile the viewer
+		 * focused with it
+		 *
+		 * @param slot  the slot of the session of the viewer
+		 * @param input the input to hand over
+		 */
+		private void handleInput(int slot, MinesweeperInput input) {
+			this.board.handleInput(input);
+			this.sessions.setFocusIndex(slot, this.board.getFocusedTile());
+		}
+
+		/**
+		 * Moves a sneak walking viewer in the direction of the movement keys they
+		 * hold
+		 * <p>
+		 * Input is received from everyone holding the map, so the movement keys of a
+		 * sneak walking viewer never move them by themselves. Instead, they are moved
+		 * here, relative to where they are facing.
+		 *
+		 * @param player the viewer
+		 * @param keys   the movement keys held, see
+		 *               {@link MinesweeperSessions#heldKeys(int)}
+		 */
+		private void sneakWalk(Player player, int keys) {
+			int forward = MinesweeperSessions.axis(keys, MapPlayerInput.Key.UP, MapPlayerInput.Key.DOWN);
+			int strafe = MinesweeperSessions.axis(keys, MapPlayerInput.Key.RIGHT, MapPlayerInput.Key.LEFT);
+			if (forward == 0 && strafe == 0) {
 				return;
 			}
-			Player player = this.getViewers().get(0);
 
-			// Allow walking around when sneaking
-			if (this.sneakWalking && !player.isSneaking()) {
-				this.sneakWalking = false;
-				this.setReceiveInputWhenHolding(true);
+			player.getLocation(this.lookLocation);
+			double yaw = Math.toRadians(this.lookLocation.getYaw());
+			double sin = Math.sin(yaw), cos = Math.cos(yaw);
+			double speed = Minesweeper.SNEAK_WALK_SPEED / Math.sqrt(forward * forward + strafe * strafe);
+
+			Vector velocity = player.getVelocity();
+			velocity.setX((-sin * forward - cos * strafe) * speed);
+			velocity.setZ((cos * forward - sin * strafe) * speed);
+			player.setVelocity(velocity);
+		}
+
+		/**
+		 * Gets the sound mixer of this display
+		 * <p>
+		 * Widgets should request sounds through the mixer instead of playing them on
+		 * the display directly, so that the same sound is only sent once per tick.
+		 *
+		 * @return the sound mixer
+		 */
+		public MinesweeperSoundMixer getSounds() {
+			return this.sounds;
+		}
+
+		/**
+		 * Looks for a hint on the current game for a player
+		 *
+		 * @param player the player to send the hint to
+		 * @see MinesweeperBoard#requestHint(Player)
+		 */
+		public void requestHint(Player player) {
+			if (this.board != null) {
+				this.board.requestHint(player);
 			}
+		}
 
-			// Update child widgets with hover position
-			MapLookPosition lookPosition = this.findLookPosition(player);
-			if (lookPosition != null) {
-				this.board.sendStatusChange(MapEventPropagation.UPSTREAM, "HOVER",
-						new Point(lookPosition.getX(), lookPosition.getY()));
+		/**
+		 * Turns the mine heatmap of this display on or off for a player
+		 *
+		 * @param player the player to tell whether the heatmap is shown
+		 * @see MinesweeperBoard#toggleHeatmap(Player)
+		 */
+		public void toggleHeatmap(Player player) {
+			if (this.board != null) {
+				this.board.toggleHeatmap(player);
 			}
 		}
 
@@ -294,7 +637,7 @@ public class Main extends JavaPlugin {
 		 * <li>Initialize the minesweeper board widget
 		 * <li>Fill the background with a gray color
 		 * <li>Add the board widget to the display
-		 * <li>Update sneak walking
+		 * <li>End the session of every viewer, which start again on the next tick
 		 * </ol>
 		 *
 		 * @see {@link MapDisplay#clearWidgets()} to clear all widgets
@@ -309,41 +652,75 @@ public class Main extends JavaPlugin {
 		public void reload() {
 			this.clearWidgets();
 
-			this.board = new MinesweeperBoard();
+			this.sessions.clear();
+
+			this.board = new MinesweeperBoard(this.seed);
 			this.board.setState(GameState.TITLE);
 
 			this.getLayer().fillRectangle(0, 0, this.getWidth(), this.getHeight(),
 					MapColorPalette.getColor(223, 223, 223));
 			this.addWidget(this.board);
 
-			this.sneakWalking = this.getOwners().get(0).isSneaking();
-			this.setReceiveInputWhenHolding(!this.sneakWalking);
+			this.setReceiveInputWhenHolding(true);
 		}
 
 		/**
 		 * {@inheritDoc}
 		 * <p>
-		 * We use this method to update sneak walking.
+		 * We use this method to update sneak walking. The key is handled with the
+		 * tile that the player last focused, so that every viewer moves their own
+		 * cursor around the board. The keys of a viewer who is sneak walking are not
+		 * handed to the board, but move the viewer instead, see
+		 * {@link #sneakWalk(Player, int)}.
 		 *
-		 * @see #updateSneakWalking(MapKeyEvent)
+		 * @see #updateSneakWalking(int, MapKeyEvent)
 		 */
 		@Override
 		public void onKeyPressed(MapKeyEvent event) {
+			int slot = this.sessions.touch(event.getPlayer());
+			if (this.sessions.isSneakWalking(slot)) {
+				this.sessions.setKeyHeld(slot, event.getKey(), true);
+				return;
+			}
+			this.board.setFocusedTile(this.sessions.focusIndex(slot));
 			super.onKeyPressed(event);
-			this.updateSneakWalking(event);
+			this.sessions.setFocusIndex(slot, this.board.getFocusedTile());
+			this.updateSneakWalking(slot, event);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * The key is handled with the tile that the player last focused, like in
+		 * {@link #onKeyPressed(MapKeyEvent)}.
+		 */
+		@Override
+		public void onKeyReleased(MapKeyEvent event) {
+			int slot = this.sessions.touch(event.getPlayer());
+			if (this.sessions.isSneakWalking(slot)) {
+				this.sessions.setKeyHeld(slot, event.getKey(), false);
+				return;
+			}
+			this.board.setFocusedTile(this.sessions.focusIndex(slot));
+			super.onKeyReleased(event);
+			this.sessions.setFocusIndex(slot, this.board.getFocusedTile());
 		}
 
 		/**
-		 * Updates sneak walking based on the received key event
+		 * Updates sneak walking of a viewer based on the received key event
+		 * <p>
+		 * Input is still received from every player holding the map, including the
+		 * viewer who is sneak walking, whose input is then only used to walk around.
+		 * Everyone else keeps playing.
 		 *
+		 * @param slot  the slot of the session of the viewer
 		 * @param event the key press event that was received
 		 * @return whether sneak walking should be allowed or not
 		 */
-		private boolean updateSneakWalking(MapKeyEvent event) {
+		private boolean updateSneakWalking(int slot, MapKeyEvent event) {
 			if (event.getKey() == MapPlayerInput.Key.BACK) {
-				this.setReceiveInputWhenHolding(false);
-				this.getOwners().get(0).setSneaking(true);
-				this.sneakWalking = true;
+				event.getPlayer().setSneaking(true);
+				this.sessions.setSneakWalking(slot, true);
 				return true;
 			}
 			return false;
@@ -352,15 +729,13 @@ public class Main extends JavaPlugin {
 		/**
 		 * {@inheritDoc}
 		 * <p>
-		 * We use this to cancel the default behavior of the click event, and notify the
-		 * clicked position to all child widgets.
+		 * We use this to cancel the default behavior of the click event, and pass the
+		 * clicked position to the board straight away, which delivers it to the widget
+		 * under it.
 		 *
 		 * @param event the event containing the map click
-		 * @see {@link MapDisplay#sendStatusChange(String, Object)} for notifying the
-		 *      entire display
-		 * @see {@link MapWidget#sendStatusChange(MapEventPropagation, String, Object)}
-		 *      for notifying a specific widget with a direction to propagate the
-		 *      message
+		 * @see {@link MinesweeperBoard#handleInput(MinesweeperInput)} for how the
+		 *      click is delivered
 		 * @see {@link #onRightClick(MapClickEvent)} for the exact same thing but
 		 *      handling right-click instead
 		 */
@@ -370,22 +745,20 @@ public class Main extends JavaPlugin {
 				return;
 			}
 			event.setCancelled(true);
-			this.board.sendStatusChange(MapEventPropagation.UPSTREAM, "LEFT_CLICK",
-					new Point(event.getX(), event.getY()));
+			int slot = this.sessions.touch(event.getPlayer());
+			this.handleInput(slot, this.input.set(InputAction.LEFT_CLICK, event.getX(), event.getY()));
 		}
 
 		/**
 		 * {@inheritDoc}
 		 * <p>
-		 * We use this to cancel the default behavior of the click event, and notify the
-		 * clicked position to all child widgets.
+		 * We use this to cancel the default behavior of the click event, and pass the
+		 * clicked position to the board straight away, which delivers it to the widget
+		 * under it.
 		 *
 		 * @param event the event containing the map click
-		 * @see {@link MapDisplay#sendStatusChange(String, Object)} for notifying the
-		 *      entire display
-		 * @see {@link MapWidget#sendStatusChange(MapEventPropagation, String, Object)}
-		 *      for notifying a specific widget with a direction to propagate the
-		 *      message
+		 * @see {@link MinesweeperBoard#handleInput(MinesweeperInput)} for how the
+		 *      click is delivered
 		 * @see {@link #onLeftClick(MapClickEvent)} for the exact same thing but
 		 *      handling left-click instead
 		 */
@@ -395,8 +768,8 @@ public class Main extends JavaPlugin {
 				return;
 			}
 			event.setCancelled(true);
-			this.board.sendStatusChange(MapEventPropagation.UPSTREAM, "RIGHT_CLICK",
-					new Point(event.getX(), event.getY()));
+			int slot = this.sessions.touch(event.getPlayer());
+			this.handleInput(slot, this.input.set(InputAction.RIGHT_CLICK, event.getX(), event.getY()));
 		}
 	}
 
@@ -406,28 +779,33 @@ public class Main extends JavaPlugin {
 	 * This is a {@link MapWidget} class. Use this class to understand how to use
 	 * {@code MapWidget}s.
 	 * <p>
-	 * This widget handles all the game logic of minesweeper. The appearance and
-	 * visuals are handled by each child widget.
+	 * This widget handles all the game logic of minesweeper. The state of every
+	 * cell is kept in a {@link MinesweeperField}, while the appearance and visuals
+	 * are handled by a child widget.
 	 * <p>
 	 * This class can have any visibility, as long as it is visible to the display
 	 * class.
 	 *
 	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
 	 *
-	 * @see {@link MinesweeperTile} for another widget class
+	 * @see {@link MinesweeperGrid} for another widget class
+	 * @see {@link MinesweeperField} for the cell state storage
 	 */
 	private static class MinesweeperBoard extends MapWidget {
 		/**
 		 * The minimum border thickness
 		 */
 		private static final int MINIMUM_BORDER = 1;
-
 		/**
-		 * A list of number pairs that are considered relatively adjacent
+		 * The smallest number of cells on a board for the mines to be generated in
+		 * the background, instead of straight away
 		 */
-		private static final List<Point> ADJACENTS = Arrays.asList(new Point(-1, -1), new Point(0, -1),
-				new Point(1, -1), new Point(-1, 0), new Point(1, 0), new Point(-1, 1), new Point(0, 1),
-				new Point(1, 1));
+		private static final int BACKGROUND_CELLS = 1 << 16;
+		/**
+		 * The largest number of cells on a board for the game to be saved after every
+		 * move, see {@link #getSnapshotRevision()}
+		 */
+		private static final int SNAPSHOT_CELLS = 64 * 64;
 
 		/**
 		 * The current state of the game
@@ -440,15 +818,31 @@ public class Main extends JavaPlugin {
 		private MinesweeperDifficulty difficulty = null;
 
 		/**
-		 * The list of minesweeper tiles on the board
+		 * The state of every cell on the board
+		 */
+		private MinesweeperField field = null;
+
+		/**
+		 * The widget drawing all the tiles on the board. It is kept between games, so
+		 * that it can be reused by the next game.
+		 */
+		private MinesweeperGrid grid = null;
+
+		/**
+		 * The dialog currently shown on top of the board, if any
 		 */
-		private List<MinesweeperTile> tiles = null;
+		private MinesweeperDialog overlay = null;
 
 		/**
 		 * Whether this is the first click or not. There is extra logic when this is the
 		 * first click of the game.
 		 */
 		private boolean firstClick = false;
+		/**
+		 * The index of the first tile uncovered in the current game, or {@code -1} if
+		 * no tile is uncovered yet
+		 */
+		private int firstIndex = -1;
 
 		/**
 		 * The time when the game started
@@ -456,21 +850,59 @@ public class Main extends JavaPlugin {
 		private ZonedDateTime startTime = null;
 
 		/**
-		 * The number of times the board was regenerated
+		 * The seed every game is generated from, or {@code null} to use a new random
+		 * seed for every game
+		 */
+		private final Long fixedSeed;
+		/**
+		 * The seed the current game is generated from
+		 */
+		private long seed = 0L;
+		/**
+		 * The board taken from the pool when the current game started, until the
+		 * first tile is uncovered
+		 */
+		private MinesweeperGeneration pooled = null;
+
+		/**
+		 * Counts the boards loaded so far, see {@link #discardBackgroundWork()}. Mines
+		 * generated in the background are only used if no other board was loaded
+		 * while they were generated.
+		 */
+		private int generation = 0;
+		/**
+		 * The saved game whose mines are being placed in the background, if any
+		 */
+		private MinesweeperSnapshot restoring = null;
+		/**
+		 * Whether a hint is being looked for in the background
+		 */
+		private boolean hintPending = false;
+		/**
+		 * Whether the mine heatmap is shown
+		 */
+		private boolean heatmap = false;
+		/**
+		 * Whether a heatmap is being worked out in the background
 		 */
-		private int boardRegenerationCount = 0;
+		private boolean heatmapPending = false;
 		/**
-		 * The index of the tile to delay uncover until the next tick
+		 * The revision of the field the shown heatmap was worked out for, or
+		 * {@code -1} if there is none
 		 */
-		private int delayUncoverTileIndex = -1;
+		private int heatmapRevision = -1;
 
 		/**
 		 * Creates a MinesweeperBoard
 		 * <p>
 		 * Here we ensure that the board is focusable, which is required to allow key
 		 * presses to be received without any focusable child widgets.
+		 *
+		 * @param fixedSeed the seed every game is generated from, or {@code null} to
+		 *                  use a new random seed for every game
 		 */
-		public MinesweeperBoard() {
+		public MinesweeperBoard(Long fixedSeed) {
+			this.fixedSeed = fixedSeed;
 			this.setFocusable(true);
 		}
 
@@ -490,22 +922,6 @@ public class Main extends JavaPlugin {
 			this.reload();
 		}
 
-		/**
-		 * {@inheritDoc}
-		 * <p>
-		 * After regenerating the board, we cannot immediately uncover a tile, as the
-		 * tile is not attached yet. We use this method to delay the uncover until the
-		 * next map update cycle.
-		 */
-		@Override
-		public void onTick() {
-			if (this.delayUncoverTileIndex != -1) {
-				int temp = this.delayUncoverTileIndex;
-				this.delayUncoverTileIndex = -1;
-				this.getTile(temp).tryUncover();
-			}
-		}
-
 		/**
 		 * {@inheritDoc}
 		 * <p>
@@ -519,7 +935,7 @@ public class Main extends JavaPlugin {
 		 */
 		@Override
 		public void onDraw() {
-			if (this.tiles != null) {
+			if (this.state != GameState.TITLE) {
 				return;
 			}
 
@@ -547,14 +963,15 @@ public class Main extends JavaPlugin {
 		 * <p>
 		 * What we do here is:
 		 * <ol>
-		 * <li>Clear all existing widgets
+		 * <li>Clear all existing widgets, and forget the grid that was kept
 		 * <li>Load the required board state
-		 * <li>Draw the board to the root widget
 		 * </ol>
+		 * This is only needed when the board is first attached. Afterwards, state
+		 * changes are applied without clearing the widgets, see
+		 * {@link #setState(GameState)}.
 		 *
 		 * @see {@link MapWidget#clearWidgets()} for clearing all widgets
 		 * @see {@link #loadBoard()} for loading the required board state
-		 * @see {@link #drawBoard()} for drawing the board to the root widget
 		 */
 		public void reload() {
 			if (this.display == null) {
@@ -562,8 +979,10 @@ public class Main extends JavaPlugin {
 			}
 
 			this.clearWidgets();
+			this.field = null;
+			this.grid = null;
+			this.overlay = null;
 			this.loadBoard();
-			this.drawBoard();
 		}
 
 		/**
@@ -576,11 +995,13 @@ public class Main extends JavaPlugin {
 		 * <th>Action
 		 * <tr>
 		 * <td>{@code TITLE}
-		 * <td>Resets the difficulty, tiles list, and start time
+		 * <td>Resets the difficulty and start time, hides the board, and draws the
+		 * title
 		 * <tr>
 		 * <td>{@code GAME}
-		 * <td>Generates a new board and sets the first-click flag if a difficulty is
-		 * set and no tiles are generated; does nothing otherwise
+		 * <td>Takes a board from the pool or picks the seed, generates a new board,
+		 * sets the first-click flag, and shows the board if a difficulty is set; does
+		 * nothing otherwise
 		 * <tr>
 		 * <td>{@code WIN}
 		 * <td>Flags all non-flagged mines, and opens the win/lose dialog
@@ -595,176 +1016,164 @@ public class Main extends JavaPlugin {
 		 *      win/lose dialog is opened
 		 */
 		private void loadBoard() {
+			this.discardBackgroundWork();
 			switch (this.state) {
 			case TITLE: {
 				this.difficulty = null;
-				this.tiles = null;
 				this.startTime = null;
+				this.pooled = null;
+				this.hideBoard();
+				this.invalidate();
+				this.focus();
 				break;
 			}
 			case GAME: {
-				if (this.difficulty != null && this.tiles == null) {
+				if (this.difficulty != null) {
 					// New Game
-					this.generateNewBoard(null);
+					this.takeFromPool();
+					this.generateNewBoard();
 					this.firstClick = true;
+					this.firstIndex = -1;
+					this.drawBoard();
+					this.invalidate();
 				}
 				break;
 			}
 			case WIN: {
-				this.tiles.stream().filter(MinesweeperTile::isMine).filter(tile -> !tile.isFlagged())
-						.forEach(tile -> tile.setFlagged(true));
+				for (int index = 0; index < this.field.size(); index++) {
+					if (this.field.isMine(index) && !this.field.isFlagged(index)) {
+						this.field.setFlagged(index, true);
+						this.grid.updateTile(index);
+					}
+				}
+				this.grid.setHeatmap(null);
 				this.openWinLoseDialog(true);
 				break;
 			}
 			case LOSE: {
+				this.grid.setHeatmap(null);
 				this.openWinLoseDialog(false);
 				break;
 			}
 			}
 		}
 
+		/**
+		 * Throws away the results of all work started in the background for the
+		 * current board
+		 * <p>
+		 * This is the only place that changes {@link #generation}, and is called
+		 * whenever another board is loaded. Work still running hands back the old
+		 * value, and its result is then ignored.
+		 */
+		private void discardBackgroundWork() {
+			this.generation++;
+			this.heatmapRevision = -1;
+			this.restoring = null;
+		}
+
 		/**
 		 * Draws the board to the current root widget
 		 * <p>
-		 * This method adds tiles for each in the list, and sets the initial focused
+		 * This method shows the grid, makes it focusable, and sets the initial focused
 		 * tile to be the one in the middle.
 		 */
 		private void drawBoard() {
-			if (this.tiles == null) {
+			if (this.grid == null) {
 				return;
 			}
 
-			for (MinesweeperTile tile : this.tiles) {
-				this.addWidget(tile);
-			}
+			this.grid.setVisible(true);
+			this.grid.setFocusable(true);
 
 			// Set focus in the middle
 			final int tileRows = this.difficulty.rows();
 			final int tileCols = this.difficulty.cols();
 
-			this.getTile(tileRows / 2, tileCols / 2).focus();
+			this.grid.setFocusedIndex(this.field.index(tileRows / 2, tileCols / 2));
+			this.grid.focus();
+		}
+
+		/**
+		 * Hides the board from the current root widget
+		 * <p>
+		 * The grid is kept, but is hidden and made non-focusable, so that it can be
+		 * reused by the next game.
+		 */
+		private void hideBoard() {
+			if (this.grid == null) {
+				return;
+			}
+
+			this.grid.setVisible(false);
+			this.grid.setFocusable(false);
 		}
 
 		/**
 		 * Generates a new board
 		 * <p>
-		 * In here, we do 3 things:
-		 * <ol>
-		 * <li>Generate all the required tiles, setting their bounds and focusable
-		 * state, and hook into any callback functions that are required
-		 * <li>Randomly pick tiles to generate the required number of mines. This loops
-		 * infinitely until the required number is achieved
-		 * <li>For each non-mine, count the number of mines surrounding it, and update
-		 * the number that's shown on the tile
-		 *
-		 * @param positionToAvoid the position to avoid placing mines, if any
+		 * If the previous game had the same size, its cell storage is reset and reused.
+		 * Otherwise, we create a new cell storage.
+		 * <p>
+		 * The grid widget is only created for the first game, hooking into any
+		 * callback functions that are required. Later games reuse it, only replacing
+		 * the cell storage it shows.
+		 * <p>
+		 * No mines are placed yet. They are only placed once the first tile is
+		 * uncovered, see {@link #generateMines(int)}.
 		 */
-		private void generateNewBoard(Point positionToAvoid) {
+		private void generateNewBoard() {
 			final int tileRows = this.difficulty.rows();
 			final int tileCols = this.difficulty.cols();
-			final int tileWidth = this.getWidth() / tileCols;
-			final int tileHeight = this.getHeight() / tileRows;
-
-			final Random random = new Random();
-
-			this.tiles = new ArrayList<>();
-
-			/*
-			 * 1. Generate tiles
-			 *
-			 * a. Create each tile, and hook any callback functions needed.
-			 *
-			 * b. Set the bounds of each tile, make them focusable, and add them to the tile
-			 * list.
-			 */
-			for (int row = 0; row < tileRows; row++) {
-				for (int col = 0; col < tileCols; col++) {
-					MinesweeperTile tile = new MinesweeperTile() {
-						@Override
-						public void onUncover() {
-							MinesweeperBoard.this.handleTileUncover(this);
-						}
 
-						@Override
-						public void onTileNavigate(MapKeyEvent event) {
-							MinesweeperBoard.this.handleTileNavigation(this, event.getKey());
-						}
-					};
-					tile.setBounds(tileWidth * col, tileHeight * row, tileWidth, tileHeight);
-					tile.setFocusable(true);
-					this.tiles.add(tile);
-				}
+			if (this.field != null && this.field.rows() == tileRows && this.field.cols() == tileCols) {
+				this.field.reset();
+			} else {
+				this.field = new MinesweeperField(tileRows, tileCols);
 			}
 
-			/*
-			 * 2. Generate mines
-			 *
-			 * While the number of mines is less than required:
-			 *
-			 * a. Generate a random number representing the target tile
-			 *
-			 * b. Set the tile as a mine if it is not already a mine
-			 *
-			 * Note that this is written as a for-loop, but acts as a while loop.
-			 */
-			loop: for (int generated = 0; generated < this.difficulty.mines();) {
-				int index = random.nextInt(this.tiles.size());
-				Point rowCol = this.getRowColFromIndex(index);
-
-				if (positionToAvoid != null) {
-					if (rowCol.equals(positionToAvoid)) {
-						continue;
-					}
-					for (Point adjacent : MinesweeperBoard.ADJACENTS) {
-						if (rowCol.equals(new Point(positionToAvoid.x + adjacent.x, positionToAvoid.y + adjacent.y))) {
-							continue loop;
-						}
+			if (this.grid == null) {
+				this.grid = this.addWidget(new MinesweeperGrid() {
+					@Override
+					public void onUncover(int index) {
+						MinesweeperBoard.this.handleTileUncover(index);
 					}
-				}
-
-				MinesweeperTile tile = this.getTile(index);
-
-				if (tile.isMine()) {
-					continue;
-				}
-				tile.setMine(true);
-				generated++;
-			}
 
-			/*
-			 * 3. Fill numbers
-			 *
-			 * For each non-mine tile in the list:
-			 *
-			 * a. Count the number of mines surrounding the tile
-			 *
-			 * b. Set the mine count to the tile
-			 */
-			for (int row = 0; row < tileRows; row++) {
-				for (int col = 0; col < tileCols; col++) {
-					MinesweeperTile tile = this.getTile(row, col);
-					if (tile.isMine()) {
-						continue;
+					@Override
+					public void onChord(int index) {
+						MinesweeperBoard.this.handleChord(index);
 					}
+				});
+				this.grid.setBounds(0, 0, this.getWidth(), this.getHeight());
+			}
+			this.grid.setField(this.field);
+		}
 
-					// Count the number of mines surrounding the tile
-					int mineCount = 0;
-					for (Point adjacent : MinesweeperBoard.ADJACENTS) {
-						int newRow = row + adjacent.x, newCol = col + adjacent.y;
-						MinesweeperTile newTile = this.getTile(newRow, newCol);
-						if (newTile == null) {
-							continue;
-						}
-
-						if (newTile.isMine()) {
-							mineCount++;
-						}
-					}
+		/**
+		 * Generates the mines on the board
+		 * <p>
+		 * In here, we do 3 things:
+		 * <ol>
+		 * <li>Pick tiles from the seed of the game to generate the required number of
+		 * mines, see
+		 * {@link MinesweeperLayout#generate(MinesweeperDifficulty, long, int, int)}
+		 * <li>For each non-mine, count the number of mines surrounding it, see
+		 * {@link MinesweeperLayout#countNeighbours()}
+		 * <li>Place the mines and the numbers onto the board
+		 * </ol>
+		 * Since no mines are placed on or around the tile to avoid, that tile is always
+		 * a 0. The seed of the game is made to hold that tile, see
+		 * {@link MinesweeperLayout#seedFor(long, int)}.
+		 *
+		 * @param indexToAvoid the index of the tile to avoid placing mines around
+		 */
+		private void generateMines(int indexToAvoid) {
+			this.seed = MinesweeperLayout.seedFor(this.seed, indexToAvoid);
+			MinesweeperLayout layout = MinesweeperLayout.generate(this.difficulty, this.seed,
+					this.field.row(indexToAvoid), this.field.col(indexToAvoid));
+			layout.countNeighbours();
 
-					// Set the mine count to the tile
-					tile.setValue(mineCount);
-				}
-			}
+			this.field.applyLayout(layout);
 		}
 
 		/**
@@ -773,137 +1182,667 @@ public class Main extends JavaPlugin {
 		 * Read the comments that are inserted within the code to understand how this
 		 * works.
 		 *
-		 * @param uncovered the tile that was uncovered
+		 * @param uncovered the index of the tile that was uncovered
 		 */
-		private void handleTileUncover(MinesweeperTile uncovered) {
+		private void handleTileUncover(int uncovered) {
 			if (this.firstClick) {
 				/*
 				 * First tile uncovered logic
 				 *
-				 * If first click is a mine, or a non-zero, re-generate board and re-click
+				 * Place the mines around the first click, so that it always opens up an area.
+				 * A board from the pool, or the board a fixed seed was made for, is used if
+				 * the first click is a 0 on it, otherwise a new board is generated around the
+				 * first click from its seed. Large boards and boards without guessing are
+				 * looked at and generated in the background, and uncovered once ready.
 				 */
-				if (uncovered.isMine() || uncovered.getValue() > 0 && this.boardRegenerationCount < 10) {
-					// Regenerate the board, and uncover the tile again
-					int index = this.tiles.indexOf(uncovered);
-					this.generateNewBoard(this.getRowColFromIndex(index));
-					this.reload();
-					this.boardRegenerationCount++;
-					this.delayUncoverTileIndex = index;
+				this.firstClick = false;
+				this.firstIndex = uncovered;
+				MinesweeperGeneration pooled = this.pooled;
+				this.pooled = null;
+
+				if (this.field.size() >= MinesweeperBoard.BACKGROUND_CELLS || this.difficulty.noGuess()) {
+					this.generateMinesInBackground(uncovered, pooled);
 					return;
 				}
-				// First click is valid, start the timer and unset the first-click flag
-				this.firstClick = false;
+				MinesweeperGeneration reused = MinesweeperBoard.reuse(pooled, this.difficulty, this.seed,
+						this.field.row(uncovered), this.field.col(uncovered));
+				this.recordPoolHit(reused != null);
+				if (reused != null) {
+					this.applyGeneration(reused);
+					this.uncoverTile(uncovered);
+					return;
+				}
+				this.generateMines(uncovered);
+
+				// Start the timer
 				this.startTime = ZonedDateTime.now();
 			}
 
-			/*
-			 * Regular uncover logic
-			 */
-			// If any mine is uncovered, mark as lose
-			if (this.tiles.stream().filter(MinesweeperTile::isMine).anyMatch(tile -> !tile.isCovered())) {
-				this.setState(GameState.LOSE);
+			this.uncoverTile(uncovered);
+		}
+
+		/**
+		 * Finds a board made ahead of time that fits the first uncovered tile
+		 * <p>
+		 * The board taken from the pool is looked at first. Without one, the board the
+		 * seed of the game was made for is generated again, if the seed holds a tile,
+		 * see {@link MinesweeperGeneration#replay(MinesweeperDifficulty, long)}.
+		 *
+		 * @param pooled     the board taken from the pool, or {@code null} if there is
+		 *                   none
+		 * @param difficulty the difficulty of the game
+		 * @param seed       the seed of the game
+		 * @param row        the row of the first uncovered tile
+		 * @param col        the column of the first uncovered tile
+		 * @return the board, or {@code null} if there is none that fits the tile
+		 * @see MinesweeperGeneration#reusedAt(MinesweeperDifficulty, int, int)
+		 */
+		private static MinesweeperGeneration reuse(MinesweeperGeneration pooled, MinesweeperDifficulty difficulty,
+				long seed, int row, int col) {
+			MinesweeperGeneration board = pooled != null ? pooled : MinesweeperGeneration.replay(difficulty, seed);
+			return board == null ? null : board.reusedAt(difficulty, row, col);
+		}
+
+		/**
+		 * Counts a game that asked the pool for a board, see
+		 * {@link MinesweeperPool#record(MinesweeperDifficulty, boolean)}. Games on a
+		 * display with a fixed seed never ask the pool, so they are not counted.
+		 *
+		 * @param hit whether the game uses the board taken from the pool
+		 */
+		private void recordPoolHit(boolean hit) {
+			if (this.fixedSeed == null) {
+				((Main) this.display.getPlugin()).getPool().record(this.difficulty, hit);
+			}
+		}
+
+		/**
+		 * Generates the mines of a board in the background
+		 * <p>
+		 * While the mines are generated, a dialog is shown in front of the board, which
+		 * also blocks any input to the board. The board made ahead of time is looked
+		 * at first, see
+		 * {@link #reuse(MinesweeperGeneration, MinesweeperDifficulty, long, int, int)}.
+		 * If it does not fit, the board is generated on the common fork/join pool, see
+		 * {@link MinesweeperGeneration#generate(MinesweeperDifficulty, long, int, int, long)},
+		 * and how it went is logged.
+		 * <p>
+		 * The finished board is handed back to the main thread with the scheduler. If
+		 * the dialog was closed or another board was loaded in the meantime, it is
+		 * thrown away.
+		 *
+		 * @param indexToAvoid the index of the tile to avoid placing mines around,
+		 *                     which is uncovered once the mines are placed
+		 * @param pooled       the board taken from the pool, or {@code null} if there
+		 *                     is none
+		 */
+		private void generateMinesInBackground(int indexToAvoid, MinesweeperGeneration pooled) {
+			final int token = this.generation;
+			final MinesweeperDifficulty difficulty = this.difficulty;
+			final long seed = this.seed;
+			final int avoidRow = this.field.row(indexToAvoid), avoidCol = this.field.col(indexToAvoid);
+			final Plugin plugin = this.display.getPlugin();
+			final long budget = ((Main) plugin).getNoGuessBudget();
+
+			this.openGeneratingDialog();
+
+			ForkJoinPool.commonPool().execute(() -> {
+				MinesweeperGeneration generated = null;
+				boolean reused = false;
+				try {
+					generated = MinesweeperBoard.reuse(pooled, difficulty, seed, avoidRow, avoidCol);
+					reused = generated != null;
+					if (!reused) {
+						generated = MinesweeperGeneration.generate(difficulty, seed, avoidRow, avoidCol, budget);
+						MinesweeperBoard.logGeneration(plugin.getLogger(), difficulty, generated);
+					}
+				} catch (RuntimeException e) {
+					plugin.getLogger().log(Level.SEVERE, "Failed to generate a " + difficulty.rows() + "x"
+							+ difficulty.cols() + " board", e);
+				}
+
+				final MinesweeperGeneration result = generated;
+				final boolean hit = reused;
+				Bukkit.getScheduler().runTask(plugin, () -> this.onMinesGenerated(token, result, hit, indexToAvoid));
+			});
+		}
+
+		/**
+		 * Logs how the generation of a board went
+		 *
+		 * @param logger     the logger to log to
+		 * @param difficulty the difficulty of the board
+		 * @param generated  the generated board
+		 */
+		private static void logGeneration(Logger logger, MinesweeperDifficulty difficulty,
+				MinesweeperGeneration generated) {
+			long millis = TimeUnit.NANOSECONDS.toMillis(generated.duration());
+			if (!difficulty.noGuess()) {
+				logger.fine("Generated " + difficulty.name() + " board in " + millis + " ms");
+			} else if (generated.isNoGuess()) {
+				logger.info("Generated no-guess " + difficulty.name() + " board in " + millis + " ms after "
+						+ generated.candidates() + " candidates");
+			} else {
+				logger.warning("No no-guess " + difficulty.name() + " board found in " + millis + " ms after "
+						+ generated.candidates() + " candidates, using a random board");
+			}
+		}
+
+		/**
+		 * Called on the main thread when the mines of a board are generated in the
+		 * background
+		 * <p>
+		 * If the board is still waiting for these mines, the generating dialog is
+		 * removed, the mines are placed onto the board, the timer is started and the
+		 * first tile is uncovered. If the generation failed, the game returns to the
+		 * title instead.
+		 *
+		 * @param token        the value of {@link #generation} when the generation
+		 *                     was started
+		 * @param generated    the generated board, or {@code null} if the generation
+		 *                     failed
+		 * @param reused       whether the board was made ahead of time
+		 * @param indexToAvoid the index of the tile to uncover
+		 */
+		private void onMinesGenerated(int token, MinesweeperGeneration generated, boolean reused,
+				int indexToAvoid) {
+			if (token != this.generation || this.display == null || this.state != GameState.GAME) {
 				return;
 			}
 
-			// If all non-mines are uncovered, mark as win
-			if (this.tiles.stream().filter(tile -> !tile.isMine()).allMatch(tile -> !tile.isCovered())) {
-				this.setState(GameState.WIN);
+			if (this.overlay != null) {
+				this.overlay.removeWidget();
+				this.overlay = null;
+			}
+			if (generated == null) {
+				this.setState(GameState.TITLE);
 				return;
 			}
 
-			// If uncovered is 0, uncover all 8 adjacent cells
-			if (uncovered.getValue() == 0) {
-				Point rowCol = this.getRowColFromIndex(this.tiles.indexOf(uncovered));
+			this.recordPoolHit(reused);
+			this.applyGeneration(generated);
+			this.grid.setFocusable(true);
+			this.grid.focus();
+			this.uncoverTile(indexToAvoid);
+		}
+
+		/**
+		 * Looks for a hint for a player in the background
+		 * <p>
+		 * The cells of the board are copied straight away, and the hint is then looked
+		 * for on the common fork/join pool, see {@link MinesweeperHint}, so the tick is
+		 * never blocked. The result is handed back to the main thread with the
+		 * scheduler.
+		 *
+		 * @param player the player to send the hint to
+		 */
+		public void requestHint(Player player) {
+			if (this.state != GameState.GAME || this.firstClick || this.overlay != null) {
+				player.sendMessage(ChatColor.RED + "Uncover a tile before asking for a hint!");
+				return;
+			}
+			if (this.hintPending) {
+				player.sendMessage(ChatColor.RED + "Already looking for a hint!");
+				return;
+			}
 
-				for (Point adjacent : MinesweeperBoard.ADJACENTS) {
-					int newRow = rowCol.x + adjacent.x;
-					int newCol = rowCol.y + adjacent.y;
-					MinesweeperTile newTile = this.getTile(newRow, newCol);
-					if (newTile == null) {
-						continue;
-					}
+			final int token = this.generation;
+			final MinesweeperHint hint = new MinesweeperHint(this.field);
+			final Plugin plugin = this.display.getPlugin();
+			this.hintPending = true;
 
-					if (newTile.isCovered()) {
-						newTile.tryUncover();
-					}
+			ForkJoinPool.commonPool().execute(() -> {
+				try {
+					hint.solve();
+				} catch (RuntimeException e) {
+					plugin.getLogger().log(Level.SEVERE, "Failed to find a hint", e);
 				}
+				Bukkit.getScheduler().runTask(plugin, () -> this.onHintFound(token, hint, player));
+			});
+		}
+
+		/**
+		 * Called on the main thread when a hint has been looked for in the background
+		 * <p>
+		 * If the game is still going, the grid is focused on the cell found and the
+		 * player is told what it is. If the cell was uncovered or flagged in the
+		 * meantime, the player is asked to try again instead.
+		 *
+		 * @param token  the value of {@link #generation} when the hint was requested
+		 * @param hint   the hint that was looked for
+		 * @param player the player to send the hint to
+		 */
+		private void onHintFound(int token, MinesweeperHint hint, Player player) {
+			this.hintPending = false;
+			if (token != this.generation || this.display == null || this.state != GameState.GAME) {
+				return;
+			}
+
+			int index = hint.index();
+			if (index == -1) {
+				player.sendMessage(ChatColor.YELLOW + "There is no safe move, you will have to guess!");
+				return;
+			}
+			if (!this.field.isCovered(index) || hint.isMine() && this.field.isFlagged(index)) {
+				player.sendMessage(ChatColor.YELLOW + "The board has changed, ask again for a new hint");
+				return;
+			}
+
+			if (this.overlay == null) {
+				this.grid.setFocusedIndex(index);
+				this.grid.focus();
 			}
+			player.sendMessage(String.format("%sRow %d, column %d is %s%s", ChatColor.GREEN,
+					this.field.row(index) + 1, this.field.col(index) + 1, hint.isMine() ? "a mine" : "safe",
+					hint.trustsFlags() ? ", if your flags are right" : ""));
 		}
 
 		/**
-		 * Handles the keyboard navigation logic
+		 * Saves the game in progress
 		 * <p>
-		 * Normally this isn't required, but because of how the tiles are positioned,
-		 * the default logic moves the selection up/left from the intended selection.
+		 * Only games where the first tile has been uncovered, and the mines are
+		 * placed, can be saved. See {@link MinesweeperSnapshot} for what is saved.
+		 * While a saved game is still being picked up, it is saved again as it was
+		 * read.
+		 *
+		 * @return the saved game, or {@code null} if there is no game to save
+		 */
+		public byte[] snapshot() {
+			if (this.restoring != null) {
+				return this.restoring.data();
+			}
+			if (this.state != GameState.GAME || this.firstClick || this.overlay != null || this.startTime == null) {
+				return null;
+			}
+			long elapsed = Duration.between(this.startTime, ZonedDateTime.now()).toMillis();
+			return MinesweeperSnapshot.write(this.difficulty, this.seed, this.firstIndex, elapsed, this.field);
+		}
+
+		/**
+		 * Gets a number that changes whenever the saved game would change, other than
+		 * the time played
 		 * <p>
-		 * As such, this method handles tile navigation in a different way compared to
-		 * the default navigation
+		 * Boards with more than {@link #SNAPSHOT_CELLS} tiles take too long to save
+		 * after every move, so for them the number only changes when the game starts,
+		 * ends or is left. They are otherwise only saved when the display is
+		 * detached.
 		 *
-		 * @param currentTile the tile being navigated away from
-		 * @param pressed     the input key that was pressed
+		 * @return the revision of the game
+		 */
+		public long getSnapshotRevision() {
+			long moves;
+			if (this.field == null) {
+				moves = 0L;
+			} else if (this.field.size() > MinesweeperBoard.SNAPSHOT_CELLS) {
+				moves = this.firstClick ? 0L : 1L;
+			} else {
+				moves = this.field.getChangeCount() & 0xFFFFFFFFL;
+			}
+			return (long) this.generation << 32 | moves;
+		}
+
+		/**
+		 * Picks up a saved game
+		 * <p>
+		 * The mines are placed again from the difficulty, seed and layout tile of the
+		 * saved game, without going through the pool or the no-guess search, as the
+		 * saved seed is the one the board was actually generated from.
+		 * The tiles are then covered and flagged like they were saved, and the timer
+		 * carries on from the saved time.
+		 * <p>
+		 * Like a new game, the mines of a large board are placed in the background,
+		 * see {@link #restoreInBackground(MinesweeperSnapshot)}.
 		 *
-		 * @see {@link MapWidget#handleNavigation} for the default implementation of
-		 *      navigation
+		 * @param snapshot the saved game
 		 */
-		private void handleTileNavigation(MinesweeperTile currentTile, MapPlayerInput.Key pressed) {
-			Point rowCol = this.getRowColFromIndex(this.tiles.indexOf(currentTile));
-			int row = rowCol.x, col = rowCol.y;
-			int totalRows = this.difficulty.rows(), totalCols = this.difficulty.cols();
+		public void restore(MinesweeperSnapshot snapshot) {
+			if (this.display == null) {
+				return;
+			}
 
-			switch (pressed) {
-			case UP: {
-				if (row - 1 >= 0) {
-					this.getTile(row - 1, col).focus();
-				}
-				break;
+			this.discardBackgroundWork();
+			this.state = GameState.GAME;
+			this.difficulty = snapshot.difficulty();
+			this.seed = snapshot.seed();
+			this.pooled = null;
+			this.generateNewBoard();
+
+			this.firstClick = false;
+			this.firstIndex = snapshot.firstIndex();
+			this.drawBoard();
+			if (this.field.size() >= MinesweeperBoard.BACKGROUND_CELLS) {
+				this.restoreInBackground(snapshot);
+				return;
 			}
-			case DOWN: {
-				if (row + 1 < totalRows) {
-					this.getTile(row + 1, col).focus();
+
+			this.generateMines(snapshot.layoutIndex());
+			this.applySnapshot(snapshot);
+			this.invalidate();
+		}
+
+		/**
+		 * Places the mines of a saved game in the background
+		 * <p>
+		 * While the mines are placed, the generating dialog is shown in front of the
+		 * board, like in {@link #generateMinesInBackground(int)}. The layout is
+		 * handed back to the main thread with the scheduler, and thrown away if the
+		 * dialog was closed or another board was loaded in the meantime.
+		 *
+		 * @param snapshot the saved game
+		 */
+		private void restoreInBackground(MinesweeperSnapshot snapshot) {
+			final int token = this.generation;
+			final MinesweeperDifficulty difficulty = this.difficulty;
+			final long seed = this.seed;
+			final int avoidRow = this.field.row(snapshot.layoutIndex());
+			final int avoidCol = this.field.col(snapshot.layoutIndex());
+			final Plugin plugin = this.display.getPlugin();
+
+			this.restoring = snapshot;
+			this.openGeneratingDialog();
+
+			ForkJoinPool.commonPool().execute(() -> {
+				MinesweeperLayout layout = null;
+				try {
+					layout = MinesweeperLayout.generate(difficulty, seed, avoidRow, avoidCol);
+					layout.countNeighbours(ForkJoinPool.commonPool());
+				} catch (RuntimeException e) {
+					plugin.getLogger().log(Level.SEVERE, "Failed to restore a " + difficulty.rows() + "x"
+							+ difficulty.cols() + " board", e);
 				}
-				break;
+
+				final MinesweeperLayout result = layout;
+				Bukkit.getScheduler().runTask(plugin, () -> this.onSnapshotRestored(token, snapshot, result));
+			});
+		}
+
+		/**
+		 * Called on the main thread when the mines of a saved game are placed in the
+		 * background
+		 * <p>
+		 * If the board is still waiting for these mines, the generating dialog is
+		 * removed, and the mines and the saved tiles are placed onto the board. If
+		 * placing the mines failed, the game returns to the title instead.
+		 *
+		 * @param token    the value of {@link #generation} when the mines were
+		 *                 started
+		 * @param snapshot the saved game
+		 * @param layout   the layout of the saved game, or {@code null} if placing
+		 *                 the mines failed
+		 */
+		private void onSnapshotRestored(int token, MinesweeperSnapshot snapshot, MinesweeperLayout layout) {
+			if (token != this.generation || this.display == null || this.state != GameState.GAME) {
+				return;
 			}
-			case LEFT: {
-				if (col - 1 >= 0) {
-					this.getTile(row, col - 1).focus();
-				}
-				break;
+			this.restoring = null;
+
+			if (this.overlay != null) {
+				this.overlay.removeWidget();
+				this.overlay = null;
 			}
-			case RIGHT: {
-				if (col + 1 < totalCols) {
-					this.getTile(row, col + 1).focus();
-				}
-				break;
+			if (layout == null) {
+				this.setState(GameState.TITLE);
+				return;
 			}
-			default:
-				break;
+
+			this.field.applyLayout(layout);
+			this.applySnapshot(snapshot);
+			this.grid.setFocusable(true);
+			this.grid.focus();
+			this.grid.invalidate();
+		}
+
+		/**
+		 * Covers and flags the tiles like they were saved, once the mines are placed,
+		 * and carries the timer on from the saved time
+		 *
+		 * @param snapshot the saved game
+		 */
+		private void applySnapshot(MinesweeperSnapshot snapshot) {
+			snapshot.applyTo(this.field);
+			this.startTime = ZonedDateTime.now().minus(Duration.ofMillis(snapshot.elapsed()));
+		}
+
+		/**
+		 * Turns the mine heatmap on or off
+		 * <p>
+		 * While it is on, every covered tile is tinted by how likely it is to be a
+		 * mine, see {@link MinesweeperHeatmap}.
+		 *
+		 * @param player the player to tell whether the heatmap is shown
+		 */
+		public void toggleHeatmap(Player player) {
+			this.heatmap = !this.heatmap;
+			this.heatmapRevision = -1;
+			if (!this.heatmap && this.grid != null) {
+				this.grid.setHeatmap(null);
 			}
+			player.sendMessage(ChatColor.GREEN + "Mine heatmap turned " + (this.heatmap ? "on" : "off"));
 		}
 
 		/**
 		 * {@inheritDoc}
 		 * <p>
-		 * We use this method to open the difficulty selector when a left-click action
-		 * is received and there are no child widgets on the board.
+		 * Here, we start working out the mine heatmap in the background whenever tiles
+		 * were uncovered since it was last worked out. Flags are not trusted by the
+		 * heatmap, so flagging a tile keeps the current one.
 		 * <p>
-		 * It is important that the status event is sent to the {@code MapWidget} parent
-		 * ({@code super}) if the event is not handled, otherwise it will not propagate.
+		 * The cells of the board are copied straight away, and the heatmap is worked
+		 * out on the common fork/join pool within the configured time budget. The
+		 * result is handed back to the main thread with the scheduler. Only one
+		 * heatmap is worked out at a time, so a burst of uncovers is coalesced into a
+		 * single run for the latest state.
 		 */
 		@Override
-		public void onStatusChanged(MapStatusEvent event) {
-			if (this.getWidgetCount() == 0 && event.getName().equals("LEFT_CLICK")) {
-				this.openDifficultySelector();
+		public void onTick() {
+			if (!this.heatmap || this.heatmapPending || this.state != GameState.GAME || this.firstClick
+					|| this.overlay != null || this.field.getRevision() == this.heatmapRevision) {
+				return;
+			}
+
+			final int token = this.generation;
+			final MinesweeperHeatmap heatmap = new MinesweeperHeatmap(this.field, this.difficulty.mines());
+			final Plugin plugin = this.display.getPlugin();
+			final long budget = ((Main) plugin).getHeatmapBudget();
+			this.heatmapPending = true;
+
+			ForkJoinPool.commonPool().execute(() -> {
+				boolean computed = false;
+				try {
+					computed = heatmap.compute(budget);
+				} catch (RuntimeException e) {
+					plugin.getLogger().log(Level.SEVERE, "Failed to work out a mine heatmap", e);
+				}
+
+				final boolean result = computed;
+				Bukkit.getScheduler().runTask(plugin, () -> this.onHeatmapComputed(token, heatmap, result));
+			});
+		}
+
+		/**
+		 * Called on the main thread when a heatmap has been worked out in the
+		 * background
+		 * <p>
+		 * If the game is still going, the heatmap is handed to the grid, which only
+		 * redraws the tiles whose tint changed. If it could not be worked out in time,
+		 * the tint is removed until the next tile is uncovered.
+		 *
+		 * @param token    the value of {@link #generation} when the heatmap was
+		 *                 started
+		 * @param heatmap  the heatmap that was worked out
+		 * @param computed whether the heatmap was worked out in time
+		 */
+		private void onHeatmapComputed(int token, MinesweeperHeatmap heatmap, boolean computed) {
+			this.heatmapPending = false;
+			if (token != this.generation || this.display == null || this.state != GameState.GAME || !this.heatmap) {
+				return;
+			}
+
+			this.heatmapRevision = heatmap.revision();
+			this.grid.setHeatmap(computed ? heatmap.buckets() : null);
+		}
+
+		/**
+		 * Places a generated board onto the board, and starts the timer
+		 * <p>
+		 * The seed of the game becomes the seed the board was actually generated from.
+		 *
+		 * @param generated the generated board
+		 */
+		private void applyGeneration(MinesweeperGeneration generated) {
+			this.seed = generated.seed();
+			this.field.applyLayout(generated.layout());
+			this.startTime = ZonedDateTime.now();
+		}
+
+		/**
+		 * Picks the board of a new game
+		 * <p>
+		 * If the display has a fixed seed, that seed is used. Otherwise, a board is
+		 * taken from the pool, and its seed is used. If the pool is empty, a new
+		 * random seed is used instead, which holds no tile, so that no board is
+		 * generated again from it, see
+		 * {@link MinesweeperGeneration#replay(MinesweeperDifficulty, long)}.
+		 */
+		private void takeFromPool() {
+			this.pooled = null;
+			if (this.fixedSeed != null) {
+				this.seed = this.fixedSeed;
+				return;
+			}
+
+			this.pooled = ((Main) this.display.getPlugin()).getPool().take(this.difficulty);
+			this.seed = this.pooled != null ? this.pooled.seed()
+					: MinesweeperLayout.seedFor(ThreadLocalRandom.current().nextLong(), -1);
+		}
+
+		/**
+		 * Uncovers a tile once the mines are placed, and checks whether the game has
+		 * ended
+		 *
+		 * @param uncovered the index of the tile to uncover
+		 */
+		private void uncoverTile(int uncovered) {
+			/*
+			 * Regular uncover logic
+			 */
+			// Uncover the tile, along with the whole opening if it is a 0
+			this.finishReveal(this.field.reveal(uncovered));
+		}
+
+		/**
+		 * Handles the logic when a satisfied number is chorded
+		 * <p>
+		 * Every covered neighbour without a flag is uncovered in a single reveal, see
+		 * {@link MinesweeperField#chord(int)}, so the end of the game is only checked
+		 * once, and all the changed tiles are redrawn together.
+		 *
+		 * @param index the index of the number that was chorded
+		 */
+		private void handleChord(int index) {
+			if (this.state != GameState.GAME || this.firstClick) {
+				return;
+			}
+			this.finishReveal(this.field.chord(index));
+		}
+
+		/**
+		 * Redraws the tiles uncovered by the last reveal, and checks whether the game
+		 * has ended
+		 *
+		 * @param revealed the number of tiles uncovered
+		 */
+		private void finishReveal(int revealed) {
+			for (int i = 0; i < revealed; i++) {
+				this.grid.updateTile(this.field.getRevealed(i));
+			}
+
+			// If any mine is uncovered, mark as lose
+			if (this.field.isExploded()) {
+				this.setState(GameState.LOSE);
+				return;
+			}
+
+			// If all non-mines are uncovered, mark as win
+			if (this.field.getCoveredSafeCount() == 0) {
+				this.setState(GameState.WIN);
+				return;
+			}
+		}
+
+		/**
+		 * Handles a mouse-related input on the display
+		 * <p>
+		 * Instead of notifying every child widget, the input is only delivered to the
+		 * widget that is under it:
+		 * <ul>
+		 * <li>If a dialog is open, it is delivered to the dialog, as nothing below the
+		 * dialog should react to it
+		 * <li>If it is a left-click on the title, the difficulty selector is opened
+		 * <li>Otherwise, it is delivered to the grid, which works out the tile under it
+		 * </ul>
+		 *
+		 * @param input the input that was received
+		 */
+		public void handleInput(MinesweeperInput input) {
+			if (this.overlay != null) {
+				this.overlay.handleInput(input);
+				return;
+			}
+
+			if (this.state == GameState.TITLE) {
+				if (input.action() == InputAction.LEFT_CLICK) {
+					this.openDifficultySelector();
+				}
 				return;
 			}
 
-			super.onStatusChanged(event);
+			if (this.grid != null) {
+				this.grid.handleInput(input);
+			}
+		}
+
+		/**
+		 * Gets the tile at a position on the display
+		 *
+		 * @param x the X-position on the display
+		 * @param y the Y-position on the display
+		 * @return the index of the tile, or {@code -1} if there is no tile there, or
+		 *         the tiles cannot be interacted with
+		 */
+		public int getTileAt(int x, int y) {
+			if (this.grid == null || this.overlay != null || this.state != GameState.GAME) {
+				return -1;
+			}
+			return this.grid.getIndexAt(x, y);
+		}
+
+		/**
+		 * Gets the focused tile
+		 *
+		 * @return the index of the focused tile, or {@code -1} if there is no grid
+		 */
+		public int getFocusedTile() {
+			return this.grid != null ? this.grid.getFocusedIndex() : -1;
+		}
+
+		/**
+		 * Sets the focused tile, if it is on the board
+		 *
+		 * @param index the index of the tile to focus, or {@code -1} to leave the
+		 *              focus as it is
+		 */
+		public void setFocusedTile(int index) {
+			if (this.grid != null && this.state == GameState.GAME && index >= 0 && index < this.field.size()) {
+				this.grid.setFocusedIndex(index);
+			}
 		}
 
 		/**
 		 * {@inheritDoc}
 		 * <p>
 		 * We use this method to open the difficulty selector when the {@code ENTER} key
-		 * is received and there are no child widgets on the board.
+		 * is received on the title, and no dialog is open.
 		 * <p>
 		 * It is important that the key press event is sent to the {@code MapWidget}
 		 * parent ({@code super}) if the event is not handled, otherwise it will not
@@ -911,7 +1850,7 @@ public class Main extends JavaPlugin {
 		 */
 		@Override
 		public void onKeyPressed(MapKeyEvent event) {
-			if (this.getWidgetCount() == 0 && event.getKey() == MapPlayerInput.Key.ENTER) {
+			if (this.state == GameState.TITLE && this.overlay == null && event.getKey() == MapPlayerInput.Key.ENTER) {
 				this.openDifficultySelector();
 				return;
 			}
@@ -928,21 +1867,49 @@ public class Main extends JavaPlugin {
 		 * @see MinesweeperDifficultySelectDialog
 		 */
 		private void openDifficultySelector() {
-			this.addWidget(new MinesweeperDifficultySelectDialog() {
+			List<MinesweeperDifficulty> difficulties = ((Main) this.display.getPlugin()).getDifficulties();
+			this.overlay = this.addWidget(new MinesweeperDifficultySelectDialog(difficulties) {
 				@Override
 				public void onSubmit() {
 					MinesweeperBoard.this.difficulty = this.selected;
 					MinesweeperBoard.this.setState(GameState.GAME);
 				}
+
+				@Override
+				public void onClose() {
+					MinesweeperBoard.this.overlay = null;
+				}
 			});
 		}
 
+		/**
+		 * Opens the generating dialog
+		 * <p>
+		 * This method creates the generating dialog, hooking into any callback methods
+		 * as required, and adds it as a widget to the board. It also sets the grid to
+		 * be non-focusable until the mines are generated. Closing the dialog cancels
+		 * the game and returns to the title.
+		 *
+		 * @see MinesweeperGeneratingDialog
+		 */
+		private void openGeneratingDialog() {
+			this.overlay = this.addWidget(new MinesweeperGeneratingDialog() {
+				@Override
+				public void onClose() {
+					MinesweeperBoard.this.overlay = null;
+					MinesweeperBoard.this.setState(GameState.TITLE);
+				}
+			});
+
+			this.grid.setFocusable(false);
+		}
+
 		/**
 		 * Opens the win/lose dialog
 		 * <p>
 		 * This method creates the win/lose dialog, passing any arguments as needed and
 		 * hooking into any callback methods as required, and adds it as a widget to the
-		 * board. It also sets all tiles to be non-focusable.
+		 * board. It also sets the grid to be non-focusable.
 		 *
 		 * @param win whether the game ended in a win or not
 		 * @see MinesweeperWinLoseDialog
@@ -950,84 +1917,56 @@ public class Main extends JavaPlugin {
 		private void openWinLoseDialog(boolean win) {
 			Duration time = Duration.between(this.startTime, ZonedDateTime.now());
 			int numMines = this.difficulty.mines();
-			int flags = win ? numMines : this.tiles.stream().filter(MinesweeperTile::isFlagged).mapToInt(e -> 1).sum();
+			int flags = this.field.getFlagCount();
 
-			this.addWidget(new MinesweeperWinLoseDialog(win, time, flags, numMines) {
+			this.overlay = this.addWidget(new MinesweeperWinLoseDialog(win, time, flags, numMines, this.seed) {
 				@Override
 				public void onClose() {
+					MinesweeperBoard.this.overlay = null;
 					MinesweeperBoard.this.setState(GameState.TITLE);
 				}
 			});
 
-			this.tiles.forEach(tile -> tile.setFocusable(false));
+			this.grid.setFocusable(false);
 		}
 
 		/**
 		 * Sets the current game state
 		 * <p>
-		 * Setting the game state triggers a board reload.
+		 * Setting the game state loads the new state on top of the existing widgets,
+		 * only adding or removing what the new state requires.
 		 *
 		 * @param newState the new game state
+		 * @see {@link #loadBoard()} for more information on what each state requires
 		 */
 		public void setState(GameState newState) {
 			this.state = newState;
-			this.reload();
-		}
-
-		/**
-		 * Gets a tile from its row,col location
-		 *
-		 * @param row the row of the tile
-		 * @param col the column of the tile
-		 * @return the requested tile, or null if there are no tiles or the selection is
-		 *         out of bounds
-		 */
-		private MinesweeperTile getTile(int row, int col) {
-			if (this.difficulty == null || this.tiles == null) {
-				return null;
-			}
-			if (row < 0 || row >= this.difficulty.rows() || col < 0 || col >= this.difficulty.cols()) {
-				return null;
-			}
-			return this.tiles.get(row * this.difficulty.cols() + col);
-		}
-
-		/**
-		 * Gets a tile from its index
-		 *
-		 * @param index the index of the tile
-		 * @return the requested tile, or null if there are no tiles or the selection is
-		 *         out of bounds
-		 */
-		private MinesweeperTile getTile(int index) {
-			if (this.difficulty == null || this.tiles == null) {
-				return null;
+			if (this.display == null) {
+				return;
 			}
-			return this.tiles.get(index);
-		}
 
-		/**
-		 * Calculates the row and column of a tile with a given index
-		 *
-		 * @param index the index of the tile
-		 * @return the row and column of the tile
-		 */
-		private Point getRowColFromIndex(int index) {
-			if (this.difficulty == null || this.tiles == null || index < 0 || index >= this.tiles.size()) {
-				return null;
-			}
-			return new Point(index / this.difficulty.cols(), index % this.difficulty.cols());
+			this.loadBoard();
 		}
 	}
 
 	/**
-	 * This is the tile widget class for the Minesweeper game
+	 * This is the grid widget class for the Minesweeper game
 	 * <p>
 	 * This is a {@link MapWidget} class. Use this class to understand how to use
 	 * {@code MapWidget}s.
 	 * <p>
-	 * This widget handles the appearance and visuals for each minesweeper tile. The
-	 * game logic is handled in a different widget.
+	 * This widget handles the appearance and visuals for every minesweeper tile on
+	 * the board. It holds no game state of its own, and is only a view over a
+	 * {@link MinesweeperField}. A single widget draws the whole board, so the
+	 * number of widgets stays the same no matter how large the board is. The
+	 * focused and pressed tiles are tracked by their index. The game logic is
+	 * handled in a different widget.
+	 * <p>
+	 * Tiles are never made smaller than {@link #MIN_TILE_SIZE}. When the board has
+	 * more tiles than fit on the grid at that size, only a viewport of the board is
+	 * shown, which scrolls to follow the focused tile. Only the tiles inside the
+	 * viewport are ever drawn, so the cost of drawing depends on the size of the
+	 * viewport, not of the board.
 	 * <p>
 	 * This class can have any visibility, as long as it is visible to the display
 	 * class.
@@ -1036,118 +1975,361 @@ public class Main extends JavaPlugin {
 	 *
 	 * @see {@link MinesweeperBoard} for the game logic widget
 	 */
-	private static class MinesweeperTile extends MapWidget {
+	private static class MinesweeperGrid extends MapWidget {
 		/**
-		 * Whether the tile contains a mine or not
+		 * The smallest width and height of a tile, in pixels
 		 */
-		private boolean mine = false;
+		private static final int MIN_TILE_SIZE = 7;
+		/**
+		 * The tint of every heatmap bucket, from green for certainly safe tiles to red
+		 * for certain mines. Bucket 0 is not tinted
+		 */
+		private static final byte[] HEAT_COLORS = new byte[MinesweeperHeatmap.BUCKETS + 1];
+
+		static {
+			for (int bucket = 1; bucket <= MinesweeperHeatmap.BUCKETS; bucket++) {
+				float heat = (bucket - 1f) / (MinesweeperHeatmap.BUCKETS - 1);
+				MinesweeperGrid.HEAT_COLORS[bucket] = MapColorPalette.getColor((int) (255 * Math.min(1f, heat * 2)),
+						(int) (255 * Math.min(1f, 2 - heat * 2)), 0);
+			}
+		}
+
+		/**
+		 * The cell storage that holds the state of every tile
+		 */
+		private MinesweeperField field = null;
+		/**
+		 * The heatmap bucket of every tile, or {@code null} if no heatmap is shown
+		 */
+		private byte[] heatmap = null;
+
+		/**
+		 * The width of a single tile
+		 */
+		private int tileWidth = 0;
+		/**
+		 * The height of a single tile
+		 */
+		private int tileHeight = 0;
 		/**
-		 * The numeric value of a tile
+		 * The sprites of the current tile size, indexed by appearance, see
+		 * {@link MinesweeperTileSprites#forSize(int, int)}
 		 */
-		private int value = 0;
+		private MapTexture[] sprites = null;
 
 		/**
-		 * Whether the tile is flagged or not
+		 * The number of rows and columns of tiles shown in the viewport
 		 */
-		private boolean flagged = false;
+		private int viewRows = 0, viewCols = 0;
 		/**
-		 * Whether the tile is covered or not
+		 * The row and column of the tile in the top-left corner of the viewport
 		 */
-		private boolean covered = true;
+		private int viewRow = 0, viewCol = 0;
 
 		/**
-		 * A pseudo-state indicating the tile is pressed. Used for visually representing
-		 * a pressed tile
+		 * The index of the focused tile
 		 */
-		private boolean pressed = false;
+		private int focusedIndex = 0;
 		/**
-		 * A pseudo-state indicating the tile is focused. Used for visually representing
-		 * a focused tile
+		 * The index of the pressed tile, or {@code -1} if no tile is pressed. Used for
+		 * visually representing a pressed tile
+		 */
+		private int pressedIndex = -1;
+		/**
+		 * A pseudo-state indicating the grid is focused. Used for visually
+		 * representing the focused tile
 		 */
 		private boolean focused = false;
 
 		/**
-		 * {@inheritDoc}
+		 * The tiles that changed since the last redraw, one bit per tile in the
+		 * viewport
+		 */
+		private long[] dirtyTiles = new long[0];
+		/**
+		 * Whether any bit in {@link #dirtyTiles} is set
+		 */
+		private boolean anyDirty = false;
+
+		/**
+		 * Sets the cell storage to show
 		 * <p>
-		 * Here, the drawing routine is as follows:
-		 * <ol>
-		 * <li>Draw a rectangle border that is the size of the tile
-		 * <li>If the tile is covered:
-		 * <ol type="a">
-		 * <li>Fill the area with the cover color
-		 * <li>Add the flag icon if the tile is flagged. The flag icon is obtained from
-		 * the {@link Main} class.
-		 * </ol>
-		 * Otherwise:
-		 * <ol type="a">
-		 * <li>Fill the area with the background color
-		 * <li>Add an icon/character representing the tile, either a mine, a number, or
-		 * nothing if no mines surround the tile
-		 * </ol>
-		 * </ol>
+		 * The tile size is calculated from the size of the grid, and the viewport is
+		 * sized to the number of tiles that fit on the grid. The viewport is centered
+		 * on the middle tile, and the whole grid is redrawn.
 		 *
-		 * @see {@link MapColorPalette#getColor(int, int, int)} for getting a byte color
-		 *      from RGB
-		 * @see {@link MapWidget#view} for obtaining the canvas that is bound by the
-		 *      widget
-		 * @see {@link MapCanvas#drawRectangle(int, int, int, int, byte)} for drawing a
-		 *      bordered rectangle
-		 * @see {@link MapCanvas#fillRectangle(int, int, int, int, byte)} for drawing a
-		 *      filled rectangle
-		 * @see {@link MapCanvas#draw(MapCanvas, int, int)} for drawing a
-		 *      {@code MapCanvas} or {@link MapTexture}
-		 * @see {@link MapCanvas#draw(MapFont, int, int, byte, CharSequence)} for
-		 *      drawing text using a given {@link MapFont}
-		 * @see {@link MapWidget#display} for obtaining the display that this widget is
-		 *      attached to
-		 * @see {@link MapDisplay#getPlugin()} for obtaining the {@code JavaPlugin} of
-		 *      the display
+		 * @param field the cell storage that holds the state of every tile
+		 */
+		public void setField(MinesweeperField field) {
+			this.field = field;
+			this.tileWidth = Math.max(this.getWidth() / field.cols(), MinesweeperGrid.MIN_TILE_SIZE);
+			this.tileHeight = Math.max(this.getHeight() / field.rows(), MinesweeperGrid.MIN_TILE_SIZE);
+			this.sprites = ((Main) this.display.getPlugin()).getTileSprites().forSize(this.tileWidth,
+					this.tileHeight);
+			this.viewCols = Math.min(this.getWidth() / this.tileWidth, field.cols());
+			this.viewRows = Math.min(this.getHeight() / this.tileHeight, field.rows());
+			this.focusedIndex = field.index(field.rows() / 2, field.cols() / 2);
+			this.viewRow = Math.max(0, Math.min(field.rows() / 2 - this.viewRows / 2, field.rows() - this.viewRows));
+			this.viewCol = Math.max(0, Math.min(field.cols() / 2 - this.viewCols / 2, field.cols() - this.viewCols));
+			this.pressedIndex = -1;
+			this.heatmap = null;
+			int viewSize = this.viewRows * this.viewCols;
+			if (this.dirtyTiles.length != viewSize + 63 >> 6) {
+				this.dirtyTiles = new long[viewSize + 63 >> 6];
+			}
+			this.invalidate();
+		}
+
+		/**
+		 * Sets the heatmap to tint the covered tiles with
+		 * <p>
+		 * Only the tiles in the viewport whose bucket changed are redrawn, as the rest
+		 * are redrawn anyway when the viewport scrolls.
+		 *
+		 * @param heatmap the heatmap bucket of every tile, see
+		 *                {@link MinesweeperHeatmap#buckets()}, or {@code null} to
+		 *                remove the tint
+		 */
+		public void setHeatmap(byte[] heatmap) {
+			byte[] oldHeatmap = this.heatmap;
+			this.heatmap = heatmap;
+			if (this.field == null || oldHeatmap == heatmap) {
+				return;
+			}
+
+			for (int row = this.viewRow; row < this.viewRow + this.viewRows; row++) {
+				for (int col = this.viewCol; col < this.viewCol + this.viewCols; col++) {
+					int index = this.field.index(row, col);
+					if ((oldHeatmap == null ? 0 : oldHeatmap[index]) != (heatmap == null ? 0 : heatmap[index])) {
+						this.updateTile(index);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Gets the focused tile
+		 *
+		 * @return the index of the focused tile
+		 */
+		public int getFocusedIndex() {
+			return this.focusedIndex;
+		}
+
+		/**
+		 * Sets the focused tile, redrawing the tiles that were changed
+		 * <p>
+		 * If the tile is outside the viewport, or on its edge while there are more
+		 * tiles beyond it, the viewport is scrolled so that the tile and its
+		 * neighbours can be seen.
+		 *
+		 * @param index the index of the tile to focus
+		 */
+		public void setFocusedIndex(int index) {
+			if (index == this.focusedIndex) {
+				return;
+			}
+
+			int oldIndex = this.focusedIndex;
+			this.focusedIndex = index;
+			if (this.scrollTo(index)) {
+				return;
+			}
+			this.updateTile(oldIndex);
+			this.updateTile(index);
+		}
+
+		/**
+		 * Scrolls the viewport so that a tile and its neighbours are inside it
+		 * <p>
+		 * When the viewport moves, every tile in it changes, so the whole grid is
+		 * redrawn.
+		 *
+		 * @param index the index of the tile to scroll to
+		 * @return whether the viewport moved
+		 */
+		private boolean scrollTo(int index) {
+			int row = MinesweeperGrid.scrollAxis(this.viewRow, this.viewRows, this.field.row(index),
+					this.field.rows());
+			int col = MinesweeperGrid.scrollAxis(this.viewCol, this.viewCols, this.field.col(index),
+					this.field.cols());
+			if (row == this.viewRow && col == this.viewCol) {
+				return false;
+			}
+
+			this.viewRow = row;
+			this.viewCol = col;
+			this.invalidate();
+			return true;
+		}
+
+		/**
+		 * Works out the start of the viewport along a single axis, so that a position
+		 * and the positions next to it are inside the viewport
+		 *
+		 * @param start    the current start of the viewport
+		 * @param length   the length of the viewport
+		 * @param position the position to show
+		 * @param total    the length of the board
+		 * @return the new start of the viewport
+		 */
+		private static int scrollAxis(int start, int length, int position, int total) {
+			if (length >= total) {
+				return 0;
+			}
+			// Keep one tile of margin when the viewport is large enough
+			int margin = length > 2 ? 1 : 0;
+			if (position - margin < start) {
+				start = position - margin;
+			} else if (position + margin >= start + length) {
+				start = position + margin - length + 1;
+			}
+			return Math.max(0, Math.min(start, total - length));
+		}
+
+		/**
+		 * Marks a single tile to be redrawn
+		 * <p>
+		 * This should be called whenever the state of a tile changes. The tile is not
+		 * drawn straight away. Instead, all the tiles changed during a tick are
+		 * collected, and drawn together at the end of the tick, so that a large
+		 * reveal only costs a single pass over the grid.
+		 *
+		 * @param index the index of the tile to redraw
+		 * @see {@link #onTick()} for how the changed tiles are drawn
+		 */
+		public void updateTile(int index) {
+			if (this.field == null) {
+				return;
+			}
+
+			int viewIndex = this.toViewIndex(index);
+			if (viewIndex == -1) {
+				return;
+			}
+			this.dirtyTiles[viewIndex >> 6] |= 1L << viewIndex;
+			this.anyDirty = true;
+		}
+
+		/**
+		 * Gets the position of a tile inside the viewport
+		 *
+		 * @param index the index of the tile
+		 * @return the position of the tile in the viewport, counted row by row, or
+		 *         {@code -1} if the tile is outside the viewport
+		 */
+		private int toViewIndex(int index) {
+			int row = this.field.row(index) - this.viewRow, col = this.field.col(index) - this.viewCol;
+			if (row < 0 || row >= this.viewRows || col < 0 || col >= this.viewCols) {
+				return -1;
+			}
+			return row * this.viewCols + col;
+		}
+
+		/**
+		 * Gets the tile at a position inside the viewport
+		 *
+		 * @param viewIndex the position of the tile in the viewport, counted row by
+		 *                  row
+		 * @return the index of the tile
+		 */
+		private int fromViewIndex(int viewIndex) {
+			return this.field.index(this.viewRow + viewIndex / this.viewCols, this.viewCol + viewIndex % this.viewCols);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * Here, we draw all the tiles in the viewport that were changed since the last
+		 * tick, row by row. Only the area of those tiles is drawn, the rest of the
+		 * grid is left as it is.
 		 */
 		@Override
-		public void onDraw() {
-			byte borderColor = this.focused ? MapColorPalette.getColor(175, 175, 175)
-					: MapColorPalette.getColor(0, 0, 0);
-			byte backColor = this.mine ? MapColorPalette.getColor(170, 0, 14) : MapColorPalette.getColor(192, 192, 192);
-			byte coverColor = this.pressed ? MapColorPalette.getColor(109, 109, 109)
-					: MapColorPalette.getColor(145, 145, 145);
+		public void onTick() {
+			if (!this.anyDirty) {
+				return;
+			}
+			this.anyDirty = false;
 
-			int w = this.getWidth(), h = this.getHeight();
+			if (this.display == null || !this.isVisible()) {
+				Arrays.fill(this.dirtyTiles, 0L);
+				return;
+			}
 
-			// Borders
-			this.view.drawRectangle(0, 0, w, h, borderColor);
+			for (int word = 0; word < this.dirtyTiles.length; word++) {
+				long bits = this.dirtyTiles[word];
+				if (bits == 0L) {
+					continue;
+				}
+				this.dirtyTiles[word] = 0L;
 
-			// Text and Icons
-			boolean largeFont = h > 9;
-			MapFont<Character> font = largeFont ? MapFont.MINECRAFT : MapFont.TINY;
-			MapTexture flag = largeFont ? ((Main) this.display.getPlugin()).getFlagTextureNormal()
-					: ((Main) this.display.getPlugin()).getFlagTextureTiny();
-			int w_off = largeFont ? 2 : 1, h_off = largeFont ? 3 : 2;
+				while (bits != 0L) {
+					this.drawTile(this.fromViewIndex(word << 6 | Long.numberOfTrailingZeros(bits)));
+					bits &= bits - 1;
+				}
+			}
+		}
 
-			if (this.covered) {
-				this.view.fillRectangle(1, 1, w - 2, h - 2, coverColor);
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * Here, we draw every tile in the viewport. Any changed tiles waiting to be
+		 * drawn are drawn as well, so they are cleared.
+		 *
+		 * @see {@link #drawTile(int)} for the drawing routine of a single tile
+		 */
+		@Override
+		public void onDraw() {
+			if (this.field == null) {
+				return;
+			}
 
-				if (this.flagged) {
-					this.view.draw(flag, w / 2 - w_off, h / 2 - h_off);
+			Arrays.fill(this.dirtyTiles, 0L);
+			this.anyDirty = false;
+			for (int row = this.viewRow; row < this.viewRow + this.viewRows; row++) {
+				for (int col = this.viewCol; col < this.viewCol + this.viewCols; col++) {
+					this.drawTile(this.field.index(row, col));
 				}
+			}
+		}
 
+		/**
+		 * Draws a single tile
+		 * <p>
+		 * The look of every tile is pre-rendered and shared between displays, and the
+		 * sprites of the tile size are looked up once when the field is set, so here
+		 * we only index the right sprite and copy it onto the grid. Every pixel of the
+		 * tile is drawn over, so the tile does not have to be cleared first.
+		 * <p>
+		 * The tile must be inside the viewport.
+		 *
+		 * @param index the index of the tile to draw
+		 *
+		 * @see {@link MinesweeperTileSprites} for how the sprites are rendered
+		 * @see {@link MapCanvas#draw(MapCanvas, int, int)} for drawing a
+		 *      {@code MapCanvas} or {@link MapTexture}
+		 */
+		private void drawTile(int index) {
+			boolean focused = this.focused && index == this.focusedIndex;
+			int w = this.tileWidth, h = this.tileHeight;
+
+			MapTexture sprite;
+			if (this.field.isCovered(index)) {
+				sprite = this.sprites[MinesweeperTileSprites.covered(this.field.isFlagged(index),
+						index == this.pressedIndex, focused)];
 			} else {
-				// Inside
-				this.view.fillRectangle(1, 1, w - 2, h - 2, backColor);
+				sprite = this.sprites[MinesweeperTileSprites.uncovered(this.field.isMine(index),
+						this.field.getValue(index), focused)];
+			}
 
-				// Text Colors
-				byte[] colors = new byte[] { MapColorPalette.getColor(255, 255, 255),
-						MapColorPalette.getColor(0, 0, 255), MapColorPalette.getColor(0, 127, 0),
-						MapColorPalette.getColor(255, 0, 0), MapColorPalette.getColor(0, 0, 127),
-						MapColorPalette.getColor(127, 0, 0), MapColorPalette.getColor(0, 127, 127),
-						MapColorPalette.getColor(127, 0, 127), MapColorPalette.getColor(127, 127, 127) };
+			int x = (this.field.col(index) - this.viewCol) * w, y = (this.field.row(index) - this.viewRow) * h;
+			this.view.draw(sprite, x, y);
 
-				if (this.mine) {
-					this.view.draw(font, w / 2 - w_off, h / 2 - h_off, colors[0], "X");
-				} else if (this.value == 0) {
-					this.view.draw(font, w / 2 - w_off, h / 2 - h_off, colors[0], "");
-				} else {
-					this.view.draw(font, w / 2 - w_off, h / 2 - h_off, colors[this.value], String.valueOf(this.value));
-				}
+			// Tint the inside of covered tiles by their heatmap bucket, leaving the edge
+			// so that pressed tiles can still be told apart
+			if (this.heatmap != null && this.heatmap[index] != 0 && this.field.isCovered(index)
+					&& !this.field.isFlagged(index)) {
+				this.view.fillRectangle(x + 2, y + 2, w - 4, h - 4, MinesweeperGrid.HEAT_COLORS[this.heatmap[index]]);
 			}
 		}
 
@@ -1156,35 +2338,38 @@ public class Main extends JavaPlugin {
 		 * <p>
 		 * This method is separated into 2 parts.
 		 * <p>
-		 * When the {@code ENTER} key or {@code BACK} key is pressed, set the
-		 * pseudo-state pressed, and trigger the widget to redraw.
+		 * When the {@code ENTER} key or {@code BACK} key is pressed, set the focused
+		 * tile as pressed, and redraw it.
 		 * <p>
-		 * When a direction key is pressed, override the default navigation and call the
-		 * custom navigation routine.
+		 * When a direction key is pressed, move the focus to the tile in that
+		 * direction.
 		 * <p>
 		 * It is important that the key press event is sent to the {@code MapWidget}
 		 * parent ({@code super}) if the event is not handled, otherwise it will not
 		 * propagate.
 		 *
 		 * @param event the key press event that was received
-		 * @see {@link #onTileNavigate(MapKeyEvent)} for more information of the custom
-		 *      navigation routine
-		 * @see {@link MapWidget#invalidate()} for triggering the widget to redraw
+		 * @see {@link #handleTileNavigation(MapPlayerInput.Key)} for more information
+		 *      of the tile navigation routine
 		 */
 		@Override
 		public void onKeyPressed(MapKeyEvent event) {
+			if (this.field == null) {
+				super.onKeyPressed(event);
+				return;
+			}
+
 			switch (event.getKey()) {
 			case ENTER:
 			case BACK:
-				this.pressed = true;
-				this.invalidate();
+				this.pressedIndex = this.focusedIndex;
+				this.updateTile(this.pressedIndex);
 				return;
 			case UP:
 			case DOWN:
 			case LEFT:
 			case RIGHT:
-				// Navigation overridden as it is jumping diagonals.
-				this.onTileNavigate(event);
+				this.handleTileNavigation(event.getKey());
 				return;
 			}
 
@@ -1194,8 +2379,8 @@ public class Main extends JavaPlugin {
 		/**
 		 * {@inheritDoc}
 		 * <p>
-		 * This method first confirms that the pseudo-state pressed is set, then it
-		 * unsets the pressed state and separates into 2 parts.
+		 * This method first confirms that a tile is pressed, then it unsets the
+		 * pressed tile and separates into 2 parts.
 		 * <p>
 		 * When the {@code ENTER} key is released, uncover the tile.
 		 * <p>
@@ -1206,19 +2391,22 @@ public class Main extends JavaPlugin {
 		 * propagate.
 		 *
 		 * @param event the key release event that was received
-		 * @see {@link #tryUncover()} for uncovering the tile
-		 * @see {@link #setFlagged()} for setting the flagged state
+		 * @see {@link #tryUncover(int)} for uncovering the tile
+		 * @see {@link #trySetFlagged(int, boolean)} for setting the flagged state
 		 */
 		@Override
 		public void onKeyReleased(MapKeyEvent event) {
-			if (this.pressed) {
-				this.pressed = false;
+			if (this.pressedIndex != -1) {
+				int index = this.pressedIndex;
+				this.pressedIndex = -1;
+				this.updateTile(index);
+
 				if (event.getKey() == MapPlayerInput.Key.ENTER) {
-					this.tryUncover();
+					this.tryUncover(index);
 					return;
 				}
 				if (event.getKey() == MapPlayerInput.Key.BACK) {
-					this.trySetFlagged(!this.flagged);
+					this.trySetFlagged(index, !this.field.isFlagged(index));
 					return;
 				}
 			}
@@ -1227,206 +2415,4180 @@ public class Main extends JavaPlugin {
 		}
 
 		/**
-		 * The custom tile navigation logic
+		 * Handles the keyboard navigation logic
 		 * <p>
-		 * This method is expected to be overridden. Without overriding, by default, it
-		 * delegates navigation to the default navigation logic.
+		 * As all the tiles are drawn by this widget, the default navigation between
+		 * widgets does not apply. Instead, the focus is moved to the neighbouring tile
+		 * in the pressed direction, if there is one.
 		 *
-		 * @param event the key event
-		 * @see {@link MapWidget#handleNavigation(MapKeyEvent)} for the default
-		 *      navigation logic
+		 * @param pressed the input key that was pressed
 		 */
-		public void onTileNavigate(MapKeyEvent event) {
-			super.handleNavigation(event);
+		private void handleTileNavigation(MapPlayerInput.Key pressed) {
+			int row = this.field.row(this.focusedIndex), col = this.field.col(this.focusedIndex);
+
+			switch (pressed) {
+			case UP: {
+				row--;
+				break;
+			}
+			case DOWN: {
+				row++;
+				break;
+			}
+			case LEFT: {
+				col--;
+				break;
+			}
+			case RIGHT: {
+				col++;
+				break;
+			}
+			default:
+				break;
+			}
+
+			if (this.field.contains(row, col)) {
+				this.setFocusedIndex(this.field.index(row, col));
+			}
 		}
 
 		/**
-		 * {@inheritDoc}
+		 * Handles a mouse-related input on the display
 		 * <p>
-		 * When the correct mouse-related status event is received, the current widget
-		 * is focusable, and the mouse location is within bounds of the widget:
+		 * When the current widget is focusable, and the mouse location is on a tile:
 		 * <p>
 		 * <ul>
-		 * <li>If it is a hover, focus the tile
+		 * <li>If it is a hover, focus the tile. Hovers are only sent when a viewer looks
+		 * at a different tile, see {@link MinesweeperSessions}
 		 * <li>If it is a left-click, focus and uncover the tile
 		 * <li>If it is a right-click, focus the tile and toggle the flagged state
 		 * </ul>
-		 * <p>
-		 * It is important that the status event is sent to the {@code MapWidget} parent
-		 * ({@code super}) if the event is not handled, otherwise it will not propagate.
 		 *
-		 * @see {@link Main#isInBounds(MapWidget, int, int)} for more information on how
-		 *      the in-bounds check is done
+		 * @param input the input that was received
+		 * @see {@link #getIndexAt(int, int)} for more information on how the tile is
+		 *      found
 		 */
-		@Override
-		public void onStatusChanged(MapStatusEvent event) {
-			if (!Arrays.asList("LEFT_CLICK", "RIGHT_CLICK", "HOVER").contains(event.getName()) || !this.isFocusable()) {
+		public void handleInput(MinesweeperInput input) {
+			if (!this.isFocusable()) {
 				return;
 			}
-			Point clicked = event.getArgument(Point.class);
-			int clickedX = clicked.x, clickedY = clicked.y;
-
-			if (!Main.isInBounds(this, clickedX, clickedY)) {
+			int index = this.getIndexAt(input.x(), input.y());
+			if (index == -1) {
 				return;
 			}
 
 			this.focus();
-			if (event.getName().equals("LEFT_CLICK")) {
-				this.tryUncover();
-			} else if (event.getName().equals("RIGHT_CLICK")) {
-				this.trySetFlagged(!this.flagged);
+			this.setFocusedIndex(index);
+			switch (input.action()) {
+			case LEFT_CLICK:
+				this.tryUncover(index);
+				break;
+			case RIGHT_CLICK:
+				this.trySetFlagged(index, !this.field.isFlagged(index));
+				break;
+			default:
+				break;
+			}
+		}
+
+		/**
+		 * Gets the tile at a position on the display
+		 *
+		 * @param x the X-position on the display
+		 * @param y the Y-position on the display
+		 * @return the index of the tile at that position in the viewport, or
+		 *         {@code -1} if there is no tile there
+		 */
+		private int getIndexAt(int x, int y) {
+			if (this.field == null || this.tileWidth == 0 || this.tileHeight == 0) {
+				return -1;
+			}
+
+			int relativeX = x - this.getAbsoluteX(), relativeY = y - this.getAbsoluteY();
+			if (relativeX < 0 || relativeY < 0) {
+				return -1;
+			}
+
+			int row = relativeY / this.tileHeight, col = relativeX / this.tileWidth;
+			if (row >= this.viewRows || col >= this.viewCols) {
+				return -1;
+			}
+			return this.field.index(this.viewRow + row, this.viewCol + col);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * We unset the pressed tile and the pseudo-state {@link #focused}, and redraw
+		 * the tiles that were changed.
+		 */
+		@Override
+		public void onBlur() {
+			int pressed = this.pressedIndex;
+			this.pressedIndex = -1;
+			this.focused = false;
+			if (pressed != -1) {
+				this.updateTile(pressed);
 			}
+			this.updateTile(this.focusedIndex);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * We set the pseudo-state {@link #focused}, and redraw the focused tile.
+		 */
+		@Override
+		public void onFocus() {
+			this.focused = true;
+			this.updateTile(this.focusedIndex);
+		}
+
+		/**
+		 * Attempts to uncover a tile
+		 * <p>
+		 * If the widget is not attached to a display, or the tile has a flag, nothing
+		 * happens. If the tile is already uncovered, it is chorded instead, see
+		 * {@link #tryChord(int)}.
+		 * <p>
+		 * Otherwise, a sound is played and the callback function
+		 * {@link #onUncover(int)} is called. The callback is responsible for actually
+		 * uncovering the cell, as uncovering a 0 also opens up all the cells around
+		 * it.
+		 *
+		 * @param index the index of the tile to uncover
+		 */
+		public void tryUncover(int index) {
+			if (this.display == null || this.field.isFlagged(index)) {
+				return;
+			}
+			if (!this.field.isCovered(index)) {
+				this.tryChord(index);
+				return;
+			}
+
+			((Minesweeper) this.display).getSounds()
+					.play(this.field.isMine(index) ? MinesweeperSound.EXPLODE : MinesweeperSound.UNCOVER);
+
+			this.onUncover(index);
+		}
+
+		/**
+		 * Called when a tile is about to be uncovered
+		 * <p>
+		 * This method is can be overridden to handle the uncover logic.
+		 *
+		 * @param index the index of the tile to uncover
+		 */
+		public void onUncover(int index) {
+		}
+
+		/**
+		 * Attempts to chord an uncovered number, uncovering all its neighbours without
+		 * a flag at once
+		 * <p>
+		 * If the tile is not a number, it does not have as many flags around it as its
+		 * value, or there is nothing around it left to uncover, nothing happens.
+		 * <p>
+		 * Otherwise, a single sound is played for the whole chord, and the callback
+		 * function {@link #onChord(int)} is called.
+		 *
+		 * @param index the index of the uncovered tile
+		 */
+		private void tryChord(int index) {
+			if (this.field.getValue(index) == 0 || this.field.getRemaining(index) != 0) {
+				return;
+			}
+
+			boolean covered = false, mine = false;
+			int row = this.field.row(index), col = this.field.col(index);
+			for (int newRow = row - 1; newRow <= row + 1; newRow++) {
+				for (int newCol = col - 1; newCol <= col + 1; newCol++) {
+					if (!this.field.contains(newRow, newCol)) {
+						continue;
+					}
+					int newIndex = this.field.index(newRow, newCol);
+					if (this.field.isCovered(newIndex) && !this.field.isFlagged(newIndex)) {
+						covered = true;
+						mine |= this.field.isMine(newIndex);
+					}
+				}
+			}
+			if (!covered) {
+				return;
+			}
+
+			((Minesweeper) this.display).getSounds().play(mine ? MinesweeperSound.EXPLODE : MinesweeperSound.UNCOVER);
+
+			this.onChord(index);
+		}
+
+		/**
+		 * Called when an uncovered number is about to be chorded
+		 * <p>
+		 * This method can be overridden to handle the chord logic.
+		 *
+		 * @param index the index of the number to chord
+		 */
+		public void onChord(int index) {
+		}
+
+		/**
+		 * Attempts to set whether a tile has a flag or not
+		 * <p>
+		 * If the widget is not attached to a display, or the tile is already uncovered,
+		 * nothing happens.
+		 * <p>
+		 * Otherwise, the state is updated, a sound is played, and the tile is redrawn.
+		 *
+		 * @param index   the index of the tile
+		 * @param flagged if the tile should be flagged or not
+		 */
+		public void trySetFlagged(int index, boolean flagged) {
+			if (this.display == null || !this.field.isCovered(index)) {
+				return;
+			}
+
+			this.field.setFlagged(index, flagged);
+			((Minesweeper) this.display).getSounds().play(flagged ? MinesweeperSound.FLAG : MinesweeperSound.UNFLAG);
+			this.updateTile(index);
+		}
+	}
+
+	/**
+	 * This is the tile sprite cache class for the Minesweeper game
+	 * <p>
+	 * This class pre-renders the look of a tile into {@link MapTexture}s, so that
+	 * drawing a tile is a single copy of a texture instead of drawing borders, fills
+	 * and text every time. There is one texture per combination of tile size and
+	 * tile appearance. All the textures of a tile size are rendered the first time
+	 * that size is needed, and shared by every display afterwards. The grid keeps
+	 * the textures of its tile size, and indexes them directly when drawing.
+	 * <p>
+	 * This class is not thread-safe, and should only be used from the main thread.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 *
+	 * @see {@link MapTexture#createEmpty(int, int)} for creating an empty texture
+	 */
+	private static class MinesweeperTileSprites {
+		/**
+		 * The number of different appearances of a covered tile: flagged, pressed and
+		 * focused, in any combination
+		 */
+		private static final int COVERED_SPRITES = 8;
+		/**
+		 * The number of different appearances a tile can have
+		 * <p>
+		 * On top of the covered appearances, an uncovered tile can show a number from
+		 * 0 to 8 or a mine, and can be focused or not.
+		 */
+		private static final int SPRITE_COUNT = MinesweeperTileSprites.COVERED_SPRITES + 10 * 2;
+
+		/**
+		 * The flag texture used on large tiles
+		 */
+		private final MapTexture flagTextureNormal;
+		/**
+		 * The flag texture used on small tiles
+		 */
+		private final MapTexture flagTextureTiny;
+
+		/**
+		 * The rendered sprites of each tile size, indexed by appearance
+		 */
+		private final Map<Integer, MapTexture[]> sprites = new HashMap<>();
+
+		/**
+		 * Creates a sprite cache
+		 *
+		 * @param flagTextureNormal the flag texture used on large tiles
+		 * @param flagTextureTiny   the flag texture used on small tiles
+		 */
+		public MinesweeperTileSprites(MapTexture flagTextureNormal, MapTexture flagTextureTiny) {
+			this.flagTextureNormal = flagTextureNormal;
+			this.flagTextureTiny = flagTextureTiny;
+		}
+
+		/**
+		 * Gets the sprites of a tile size, rendering them if they have not been
+		 * rendered yet
+		 * <p>
+		 * The sprites are indexed by appearance, see
+		 * {@link #covered(boolean, boolean, boolean)} and
+		 * {@link #uncovered(boolean, int, boolean)}. The array is shared, and must not
+		 * be changed.
+		 *
+		 * @param width  the width of the tile
+		 * @param height the height of the tile
+		 * @return the sprites of the tile size
+		 */
+		public MapTexture[] forSize(int width, int height) {
+			return this.sprites.computeIfAbsent(width << 16 | height, key -> {
+				MapTexture[] sizeSprites = new MapTexture[MinesweeperTileSprites.SPRITE_COUNT];
+				for (int sprite = 0; sprite < sizeSprites.length; sprite++) {
+					sizeSprites[sprite] = this.render(width, height, sprite);
+				}
+				return sizeSprites;
+			});
+		}
+
+		/**
+		 * Gets the appearance of a covered tile
+		 *
+		 * @param flagged whether the tile is flagged
+		 * @param pressed whether the tile is pressed
+		 * @param focused whether the tile is focused
+		 * @return the index of the sprite of the tile
+		 */
+		public static int covered(boolean flagged, boolean pressed, boolean focused) {
+			return (flagged ? 4 : 0) | (pressed ? 2 : 0) | (focused ? 1 : 0);
+		}
+
+		/**
+		 * Gets the appearance of an uncovered tile
+		 *
+		 * @param mine    whether the tile is a mine
+		 * @param value   the number of mines surrounding the tile
+		 * @param focused whether the tile is focused
+		 * @return the index of the sprite of the tile
+		 */
+		public static int uncovered(boolean mine, int value, boolean focused) {
+			return MinesweeperTileSprites.COVERED_SPRITES + (mine ? 9 : value) * 2 + (focused ? 1 : 0);
+		}
+
+		/**
+		 * Renders a sprite
+		 * <p>
+		 * Here, the drawing routine is as follows:
+		 * <ol>
+		 * <li>Draw a rectangle border that is the size of the tile
+		 * <li>If the tile is covered:
+		 * <ol type="a">
+		 * <li>Fill the area with the cover color
+		 * <li>Add the flag icon if the tile is flagged
+		 * </ol>
+		 * Otherwise:
+		 * <ol type="a">
+		 * <li>Fill the area with the background color
+		 * <li>Add an icon/character representing the tile, either a mine, a number, or
+		 * nothing if no mines surround the tile
+		 * </ol>
+		 * </ol>
+		 *
+		 * @param w      the width of the tile
+		 * @param h      the height of the tile
+		 * @param sprite the appearance of the tile
+		 * @return the rendered sprite
+		 *
+		 * @see {@link MapColorPalette#getColor(int, int, int)} for getting a byte color
+		 *      from RGB
+		 * @see {@link MapCanvas#drawRectangle(int, int, int, int, byte)} for drawing a
+		 *      bordered rectangle
+		 * @see {@link MapCanvas#fillRectangle(int, int, int, int, byte)} for drawing a
+		 *      filled rectangle
+		 * @see {@link MapCanvas#draw(MapCanvas, int, int)} for drawing a
+		 *      {@code MapCanvas} or {@link MapTexture}
+		 * @see {@link MapCanvas#draw(MapFont, int, int, byte, CharSequence)} for
+		 *      drawing text using a given {@link MapFont}
+		 */
+		private MapTexture render(int w, int h, int sprite) {
+			MapTexture texture = MapTexture.createEmpty(w, h);
+
+			boolean covered = sprite < MinesweeperTileSprites.COVERED_SPRITES;
+			boolean focused = (sprite & 1) != 0;
+
+			byte borderColor = focused ? MapColorPalette.getColor(175, 175, 175) : MapColorPalette.getColor(0, 0, 0);
+
+			// Borders
+			texture.drawRectangle(0, 0, w, h, borderColor);
+
+			// Text and Icons
+			boolean largeFont = h > 9;
+			MapFont<Character> font = largeFont ? MapFont.MINECRAFT : MapFont.TINY;
+			MapTexture flag = largeFont ? this.flagTextureNormal : this.flagTextureTiny;
+			int w_off = largeFont ? 2 : 1, h_off = largeFont ? 3 : 2;
+
+			if (covered) {
+				boolean flagged = (sprite & 4) != 0, pressed = (sprite & 2) != 0;
+				byte coverColor = pressed ? MapColorPalette.getColor(109, 109, 109)
+						: MapColorPalette.getColor(145, 145, 145);
+
+				texture.fillRectangle(1, 1, w - 2, h - 2, coverColor);
+
+				if (flagged) {
+					texture.draw(flag, w / 2 - w_off, h / 2 - h_off);
+				}
+
+			} else {
+				int value = (sprite - MinesweeperTileSprites.COVERED_SPRITES) / 2;
+				boolean mine = value == 9;
+				byte backColor = mine ? MapColorPalette.getColor(170, 0, 14) : MapColorPalette.getColor(192, 192, 192);
+
+				// Inside
+				texture.fillRectangle(1, 1, w - 2, h - 2, backColor);
+
+				// Text Colors
+				byte[] colors = new byte[] { MapColorPalette.getColor(255, 255, 255),
+						MapColorPalette.getColor(0, 0, 255), MapColorPalette.getColor(0, 127, 0),
+						MapColorPalette.getColor(255, 0, 0), MapColorPalette.getColor(0, 0, 127),
+						MapColorPalette.getColor(127, 0, 0), MapColorPalette.getColor(0, 127, 127),
+						MapColorPalette.getColor(127, 0, 127), MapColorPalette.getColor(127, 127, 127) };
+
+				if (mine) {
+					texture.draw(font, w / 2 - w_off, h / 2 - h_off, colors[0], "X");
+				} else if (value != 0) {
+					texture.draw(font, w / 2 - w_off, h / 2 - h_off, colors[value], String.valueOf(value));
+				}
+			}
+
+			return texture;
+		}
+	}
+
+	/**
+	 * This is the viewer session class for the Minesweeper game
+	 * <p>
+	 * A session holds what is tracked for a single viewer of a display: where they
+	 * were last looking from, the position and tile they last hovered, the tile
+	 * they last focused, and whether they are walking by sneaking along with the
+	 * movement keys they hold. All viewers share the same widgets, so a session is
+	 * only a handful of values.
+	 * <p>
+	 * The sessions are stored as parallel primitive arrays, one slot per viewer in
+	 * the order they joined, and found by the entity ID of the player through an
+	 * open-addressed hash table.
+	 * <p>
+	 * This class is not thread-safe, and should only be used from the main thread.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperSessions {
+		/**
+		 * The number of sessions there is room for at first
+		 */
+		private static final int INITIAL_CAPACITY = 4;
+
+		/**
+		 * The hash table from entity ID to slot. Each entry holds the slot plus 1,
+		 * or 0 if it is empty
+		 */
+		private int[] table = new int[MinesweeperSessions.INITIAL_CAPACITY * 2];
+		/**
+		 * The player of every slot
+		 */
+		private Player[] players = new Player[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * The entity ID of the player of every slot
+		 */
+		private int[] ids = new int[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * The value of {@link #tick} when every slot was last seen
+		 */
+		private int[] seen = new int[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * The position and rotation every viewer last looked from
+		 */
+		private double[] lookX = new double[MinesweeperSessions.INITIAL_CAPACITY],
+				lookY = new double[MinesweeperSessions.INITIAL_CAPACITY],
+				lookZ = new double[MinesweeperSessions.INITIAL_CAPACITY];
+		private float[] lookYaw = new float[MinesweeperSessions.INITIAL_CAPACITY],
+				lookPitch = new float[MinesweeperSessions.INITIAL_CAPACITY];
+		private boolean[] lookSneaking = new boolean[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * Whether every viewer has a position to look from yet
+		 */
+		private boolean[] looked = new boolean[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * The position on the display every viewer last hovered, or {@code -1}
+		 */
+		private int[] hoverX = new int[MinesweeperSessions.INITIAL_CAPACITY],
+				hoverY = new int[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * The tile every viewer last hovered, or {@code -1}
+		 */
+		private int[] hoverIndex = new int[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * The tile every viewer last focused, or {@code -1}
+		 */
+		private int[] focusIndex = new int[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * Whether every viewer is walking by sneaking
+		 */
+		private boolean[] sneakWalking = new boolean[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * The keys every viewer holds while sneak walking, one bit per key
+		 */
+		private byte[] heldKeys = new byte[MinesweeperSessions.INITIAL_CAPACITY];
+		/**
+		 * The number of slots in use
+		 */
+		private int size = 0;
+		/**
+		 * Counts the ticks, see {@link #prune()}
+		 */
+		private int tick = 0;
+
+		/**
+		 * Finds the session of a player, and marks it as seen this tick
+		 * <p>
+		 * If the player has no session yet, a new one is started at the end of the
+		 * join order. Its sneak walking state starts as whether the player is
+		 * sneaking.
+		 *
+		 * @param player the player
+		 * @return the slot of the session
+		 */
+		public int touch(Player player) {
+			int id = player.getEntityId();
+			int slot = this.find(id);
+			if (slot == -1) {
+				slot = this.add(player, id);
+			}
+			this.players[slot] = player;
+			this.seen[slot] = this.tick;
+			return slot;
+		}
+
+		/**
+		 * Ends the sessions that were not seen since the last prune, keeping the rest
+		 * in join order
+		 * <p>
+		 * This should be called once at the end of every tick, after every viewer was
+		 * touched.
+		 */
+		public void prune() {
+			int kept = 0;
+			for (int slot = 0; slot < this.size; slot++) {
+				if (this.seen[slot] == this.tick) {
+					this.move(slot, kept++);
+				}
+			}
+			if (kept != this.size) {
+				Arrays.fill(this.players, kept, this.size, null);
+				this.size = kept;
+				this.rehash(this.table.length);
+			}
+			this.tick++;
+		}
+
+		/**
+		 * Ends every session
+		 */
+		public void clear() {
+			Arrays.fill(this.table, 0);
+			Arrays.fill(this.players, null);
+			this.size = 0;
+		}
+
+		/**
+		 * Gets the number of sessions
+		 *
+		 * @return the number of sessions
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		/**
+		 * Gets the player of a session
+		 *
+		 * @param slot the slot of the session
+		 * @return the player
+		 */
+		public Player player(int slot) {
+			return this.players[slot];
+		}
+
+		/**
+		 * Checks whether the view of a viewer has changed since the last check
+		 * <p>
+		 * The view is considered changed when the viewer has moved, turned their head,
+		 * or started or stopped sneaking (which changes the eye height).
+		 *
+		 * @param slot    the slot of the session
+		 * @param scratch a location to read the position of the player into
+		 * @return whether the view has changed
+		 */
+		public boolean hasViewMoved(int slot, Location scratch) {
+			Player player = this.players[slot];
+			player.getLocation(scratch);
+			boolean sneaking = player.isSneaking();
+
+			if (this.looked[slot] && scratch.getX() == this.lookX[slot] && scratch.getY() == this.lookY[slot]
+					&& scratch.getZ() == this.lookZ[slot] && scratch.getYaw() == this.lookYaw[slot]
+					&& scratch.getPitch() == this.lookPitch[slot] && sneaking == this.lookSneaking[slot]) {
+				return false;
+			}
+
+			this.looked[slot] = true;
+			this.lookX[slot] = scratch.getX();
+			this.lookY[slot] = scratch.getY();
+			this.lookZ[slot] = scratch.getZ();
+			this.lookYaw[slot] = scratch.getYaw();
+			this.lookPitch[slot] = scratch.getPitch();
+			this.lookSneaking[slot] = sneaking;
+			return true;
+		}
+
+		/**
+		 * Records the position a viewer hovers, and the tile under it
+		 *
+		 * @param slot  the slot of the session
+		 * @param x     the X-position on the display
+		 * @param y     the Y-position on the display
+		 * @param index the index of the tile at that position, or {@code -1} if there
+		 *              is none
+		 * @return whether the hover should be handed to the board, that is, the
+		 *         position changed and is not on the same tile as before
+		 */
+		public boolean hover(int slot, int x, int y, int index) {
+			if (x == this.hoverX[slot] && y == this.hoverY[slot]) {
+				return false;
+			}
+			this.hoverX[slot] = x;
+			this.hoverY[slot] = y;
+			if (index != -1 && index == this.hoverIndex[slot]) {
+				return false;
+			}
+			this.hoverIndex[slot] = index;
+			return true;
+		}
+
+		/**
+		 * Gets the tile a viewer last focused
+		 *
+		 * @param slot the slot of the session
+		 * @return the index of the tile, or {@code -1} if none
+		 */
+		public int focusIndex(int slot) {
+			return this.focusIndex[slot];
+		}
+
+		/**
+		 * Sets the tile a viewer last focused
+		 *
+		 * @param slot  the slot of the session
+		 * @param index the index of the tile, or {@code -1} if none
+		 */
+		public void setFocusIndex(int slot, int index) {
+			this.focusIndex[slot] = index;
+		}
+
+		/**
+		 * Gets whether a viewer is walking by sneaking
+		 *
+		 * @param slot the slot of the session
+		 * @return if the viewer is sneak walking
+		 */
+		public boolean isSneakWalking(int slot) {
+			return this.sneakWalking[slot];
+		}
+
+		/**
+		 * Sets whether a viewer is walking by sneaking
+		 * <p>
+		 * The keys held by the viewer are forgotten either way.
+		 *
+		 * @param slot         the slot of the session
+		 * @param sneakWalking if the viewer is sneak walking
+		 */
+		public void setSneakWalking(int slot, boolean sneakWalking) {
+			this.sneakWalking[slot] = sneakWalking;
+			this.heldKeys[slot] = 0;
+		}
+
+		/**
+		 * Gets the keys a viewer holds while sneak walking
+		 *
+		 * @param slot the slot of the session
+		 * @return the held keys, one bit per {@link MapPlayerInput.Key#ordinal()}
+		 */
+		public int heldKeys(int slot) {
+			return this.heldKeys[slot];
+		}
+
+		/**
+		 * Records that a viewer pressed or released a key while sneak walking
+		 *
+		 * @param slot the slot of the session
+		 * @param key  the key
+		 * @param held whether the key is held
+		 */
+		public void setKeyHeld(int slot, MapPlayerInput.Key key, boolean held) {
+			if (held) {
+				this.heldKeys[slot] |= 1 << key.ordinal();
+			} else {
+				this.heldKeys[slot] &= ~(1 << key.ordinal());
+			}
+		}
+
+		/**
+		 * Gets the direction along one axis from a set of held keys
+		 *
+		 * @param keys     the held keys, see {@link #heldKeys(int)}
+		 * @param positive the key moving one way
+		 * @param negative the key moving the other way
+		 * @return {@code 1}, {@code -1}, or {@code 0} if neither or both are held
+		 */
+		public static int axis(int keys, MapPlayerInput.Key positive, MapPlayerInput.Key negative) {
+			return (keys >> positive.ordinal() & 1) - (keys >> negative.ordinal() & 1);
+		}
+
+		/**
+		 * Finds the slot of an entity ID
+		 *
+		 * @param id the entity ID of the player
+		 * @return the slot, or {@code -1} if the player has no session
+		 */
+		private int find(int id) {
+			int mask = this.table.length - 1;
+			for (int i = MinesweeperSessions.hash(id) & mask;; i = i + 1 & mask) {
+				int entry = this.table[i];
+				if (entry == 0) {
+					return -1;
+				}
+				if (this.ids[entry - 1] == id) {
+					return entry - 1;
+				}
+			}
+		}
+
+		/**
+		 * Starts a new session at the end of the join order
+		 *
+		 * @param player the player
+		 * @param id     the entity ID of the player
+		 * @return the slot of the new session
+		 */
+		private int add(Player player, int id) {
+			if (this.size == this.ids.length) {
+				this.grow(this.size * 2);
+			}
+			int slot = this.size++;
+			this.players[slot] = player;
+			this.ids[slot] = id;
+			this.looked[slot] = false;
+			this.hoverX[slot] = this.hoverY[slot] = this.hoverIndex[slot] = -1;
+			this.focusIndex[slot] = -1;
+			this.sneakWalking[slot] = player.isSneaking();
+			this.heldKeys[slot] = 0;
+
+			if (this.size * 2 > this.table.length) {
+				this.rehash(this.table.length * 2);
+			} else {
+				this.insert(slot);
+			}
+			return slot;
+		}
+
+		/**
+		 * Moves a session to another slot
+		 *
+		 * @param from the slot of the session
+		 * @param to   the slot to move it to
+		 */
+		private void move(int from, int to) {
+			if (from == to) {
+				return;
+			}
+			this.players[to] = this.players[from];
+			this.ids[to] = this.ids[from];
+			this.seen[to] = this.seen[from];
+			this.lookX[to] = this.lookX[from];
+			this.lookY[to] = this.lookY[from];
+			this.lookZ[to] = this.lookZ[from];
+			this.lookYaw[to] = this.lookYaw[from];
+			this.lookPitch[to] = this.lookPitch[from];
+			this.lookSneaking[to] = this.lookSneaking[from];
+			this.looked[to] = this.looked[from];
+			this.hoverX[to] = this.hoverX[from];
+			this.hoverY[to] = this.hoverY[from];
+			this.hoverIndex[to] = this.hoverIndex[from];
+			this.focusIndex[to] = this.focusIndex[from];
+			this.sneakWalking[to] = this.sneakWalking[from];
+			this.heldKeys[to] = this.heldKeys[from];
+		}
+
+		/**
+		 * Grows the session arrays
+		 *
+		 * @param capacity the new number of slots
+		 */
+		private void grow(int capacity) {
+			this.players = Arrays.copyOf(this.players, capacity);
+			this.ids = Arrays.copyOf(this.ids, capacity);
+			this.seen = Arrays.copyOf(this.seen, capacity);
+			this.lookX = Arrays.copyOf(this.lookX, capacity);
+			this.lookY = Arrays.copyOf(this.lookY, capacity);
+			this.lookZ = Arrays.copyOf(this.lookZ, capacity);
+			this.lookYaw = Arrays.copyOf(this.lookYaw, capacity);
+			this.lookPitch = Arrays.copyOf(this.lookPitch, capacity);
+			this.lookSneaking = Arrays.copyOf(this.lookSneaking, capacity);
+			this.looked = Arrays.copyOf(this.looked, capacity);
+			this.hoverX = Arrays.copyOf(this.hoverX, capacity);
+			this.hoverY = Arrays.copyOf(this.hoverY, capacity);
+			this.hoverIndex = Arrays.copyOf(this.hoverIndex, capacity);
+			this.focusIndex = Arrays.copyOf(this.focusIndex, capacity);
+			this.sneakWalking = Arrays.copyOf(this.sneakWalking, capacity);
+			this.heldKeys = Arrays.copyOf(this.heldKeys, capacity);
+		}
+
+		/**
+		 * Rebuilds the hash table from the slots in use
+		 *
+		 * @param length the length of the new table, a power of 2
+		 */
+		private void rehash(int length) {
+			if (this.table.length != length) {
+				this.table = new int[length];
+			} else {
+				Arrays.fill(this.table, 0);
+			}
+			for (int slot = 0; slot < this.size; slot++) {
+				this.insert(slot);
+			}
+		}
+
+		/**
+		 * Adds a slot to the hash table
+		 *
+		 * @param slot the slot to add
+		 */
+		private void insert(int slot) {
+			int mask = this.table.length - 1;
+			int i = MinesweeperSessions.hash(this.ids[slot]) & mask;
+			while (this.table[i] != 0) {
+				i = i + 1 & mask;
+			}
+			this.table[i] = slot + 1;
+		}
+
+		/**
+		 * Spreads the bits of an entity ID, as entity IDs are mostly sequential
+		 *
+		 * @param id the entity ID
+		 * @return the hash of the ID
+		 */
+		private static int hash(int id) {
+			int hash = id * 0x9E3779B9;
+			return hash ^ hash >>> 16;
+		}
+	}
+
+	/**
+	 * This is the sound mixer class for the Minesweeper game
+	 * <p>
+	 * Sounds that are requested are only counted, and are played together when the
+	 * mixer is flushed once per tick. A sound that is requested several times in
+	 * the same tick is played only once, a bit louder for every extra request, and
+	 * at most {@link #MAX_SOUNDS_PER_TICK} different sounds are played per tick.
+	 * This keeps the number of sound packets sent to every viewer of the display
+	 * low, no matter how much is happening on the board.
+	 * <p>
+	 * This class is not thread-safe, and should only be used from the main thread.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static class MinesweeperSoundMixer {
+		/**
+		 * The maximum number of different sounds played in a single tick
+		 */
+		private static final int MAX_SOUNDS_PER_TICK = 2;
+		/**
+		 * The volume added for every extra request of the same sound in a tick
+		 */
+		private static final float VOLUME_STEP = 0.1f;
+		/**
+		 * The maximum volume of a single sound
+		 */
+		private static final float MAX_VOLUME = 2.0f;
+		/**
+		 * All the sounds that can be requested, in the order they are played
+		 */
+		private static final MinesweeperSound[] SOUNDS = MinesweeperSound.values();
+
+		/**
+		 * The number of times each sound was requested since the last flush, indexed
+		 * by the ordinal of the sound
+		 */
+		private final int[] counts = new int[MinesweeperSoundMixer.SOUNDS.length];
+		/**
+		 * Whether any sound was requested since the last flush
+		 */
+		private boolean anyRequested = false;
+
+		/**
+		 * Requests a sound to be played on the next flush
+		 *
+		 * @param sound the sound to play
+		 */
+		public void play(MinesweeperSound sound) {
+			this.counts[sound.ordinal()]++;
+			this.anyRequested = true;
+		}
+
+		/**
+		 * Plays all the requested sounds on a display, and forgets about them
+		 *
+		 * @param display the display to play the sounds on
+		 */
+		public void flush(MapDisplay display) {
+			if (!this.anyRequested) {
+				return;
+			}
+			this.anyRequested = false;
+
+			int played = 0;
+			for (MinesweeperSound sound : MinesweeperSoundMixer.SOUNDS) {
+				int count = this.counts[sound.ordinal()];
+				if (count == 0) {
+					continue;
+				}
+				this.counts[sound.ordinal()] = 0;
+
+				if (played < MinesweeperSoundMixer.MAX_SOUNDS_PER_TICK) {
+					float volume = Math.min(1.0f + (count - 1) * MinesweeperSoundMixer.VOLUME_STEP,
+							MinesweeperSoundMixer.MAX_VOLUME);
+					display.playSound(sound.effect(), volume, 1.0f);
+					played++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This is the cell storage class for the Minesweeper game
+	 * <p>
+	 * This is a plain data class, and is not attached to any display. It is the
+	 * single source of truth for the state of every cell on the board, so that the
+	 * game logic never has to walk through widgets.
+	 * <p>
+	 * Each cell is packed into a single {@code byte}, laid out row by row:
+	 * <table border="1">
+	 * <tr>
+	 * <th>Bits
+	 * <th>Meaning
+	 * <tr>
+	 * <td>{@code 0-3}
+	 * <td>The number of surrounding mines
+	 * <tr>
+	 * <td>{@code 4}
+	 * <td>Whether the cell contains a mine
+	 * <tr>
+	 * <td>{@code 5}
+	 * <td>Whether the cell is flagged
+	 * <tr>
+	 * <td>{@code 6}
+	 * <td>Whether the cell is covered
+	 * </table>
+	 * <p>
+	 * Alongside the cells, the field keeps a frontier index: the covered cells next
+	 * to at least one uncovered cell, and for every uncovered cell the number of its
+	 * surrounding mines that are not flagged yet. Both are updated a neighbourhood
+	 * at a time whenever a cell is uncovered or flagged, so they never have to be
+	 * rebuilt from the whole field.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static class MinesweeperField {
+		/**
+		 * The bits holding the number of surrounding mines
+		 */
+		private static final int VALUE_MASK = 0x0F;
+		/**
+		 * The bit set when the cell contains a mine
+		 */
+		private static final int MINE_BIT = 0x10;
+		/**
+		 * The bit set when the cell is flagged
+		 */
+		private static final int FLAG_BIT = 0x20;
+		/**
+		 * The bit set when the cell is covered
+		 */
+		private static final int COVERED_BIT = 0x40;
+
+		/**
+		 * Number of rows in the field
+		 */
+		private final int rows;
+		/**
+		 * Number of columns in the field
+		 */
+		private final int cols;
+		/**
+		 * The packed state of every cell
+		 */
+		private final byte[] cells;
+
+		/**
+		 * The number of cells without a mine that are still covered
+		 */
+		private int coveredSafeCount;
+		/**
+		 * The number of flagged cells
+		 */
+		private int flagCount = 0;
+		/**
+		 * Whether a mine has been uncovered
+		 */
+		private boolean exploded = false;
+
+		/**
+		 * The work queue used while revealing an opening. Every cell is queued at most
+		 * once per reveal, so it doubles as the list of cells uncovered by the last
+		 * reveal. Allocated on first use and reused afterwards.
+		 */
+		private int[] revealQueue = null;
+		/**
+		 * The cells already queued during the current reveal, one bit per cell
+		 */
+		private long[] revealVisited = null;
+		/**
+		 * The number of cells uncovered by the last reveal
+		 */
+		private int revealCount = 0;
+
+		/**
+		 * The number of uncovered cells surrounding every cell
+		 */
+		private final byte[] openNeighbours;
+		/**
+		 * The covered cells with at least one uncovered neighbour, one bit per cell
+		 */
+		private final long[] frontier;
+		/**
+		 * The number of cells in {@link #frontier}
+		 */
+		private int frontierSize = 0;
+		/**
+		 * The surrounding mines of every uncovered cell, minus its flagged neighbours
+		 */
+		private final byte[] remaining;
+		/**
+		 * Counts the changes to which cells are covered, including resets
+		 */
+		private int revision = 0;
+		/**
+		 * Counts the changes to which cells are covered or flagged, including resets
+		 */
+		private int changeCount = 0;
+
+		/**
+		 * Creates a field where every cell is covered and contains no mine
+		 *
+		 * @param rows the number of rows
+		 * @param cols the number of columns
+		 */
+		public MinesweeperField(int rows, int cols) {
+			this.rows = rows;
+			this.cols = cols;
+			this.cells = new byte[rows * cols];
+			this.openNeighbours = new byte[rows * cols];
+			this.frontier = new long[rows * cols + 63 >> 6];
+			this.remaining = new byte[rows * cols];
+			this.reset();
+		}
+
+		/**
+		 * Resets the field, so that every cell is covered and contains no mine
+		 */
+		public void reset() {
+			Arrays.fill(this.cells, (byte) MinesweeperField.COVERED_BIT);
+			this.coveredSafeCount = this.cells.length;
+			this.flagCount = 0;
+			this.exploded = false;
+			Arrays.fill(this.openNeighbours, (byte) 0);
+			Arrays.fill(this.frontier, 0L);
+			this.frontierSize = 0;
+			Arrays.fill(this.remaining, (byte) 0);
+			this.revision++;
+			this.changeCount++;
+		}
+
+		/**
+		 * Gets the number of rows in the field
+		 *
+		 * @return the number of rows
+		 */
+		public int rows() {
+			return this.rows;
+		}
+
+		/**
+		 * Gets the number of columns in the field
+		 *
+		 * @return the number of columns
+		 */
+		public int cols() {
+			return this.cols;
+		}
+
+		/**
+		 * Gets the number of cells in the field
+		 *
+		 * @return the number of cells
+		 */
+		public int size() {
+			return this.cells.length;
+		}
+
+		/**
+		 * Gets whether a row,col location is within the field
+		 *
+		 * @param row the row of the cell
+		 * @param col the column of the cell
+		 * @return if the location is within the field
+		 */
+		public boolean contains(int row, int col) {
+			return row >= 0 && row < this.rows && col >= 0 && col < this.cols;
+		}
+
+		/**
+		 * Calculates the index of a cell from its row,col location
+		 *
+		 * @param row the row of the cell
+		 * @param col the column of the cell
+		 * @return the index of the cell
+		 */
+		public int index(int row, int col) {
+			return row * this.cols + col;
+		}
+
+		/**
+		 * Calculates the row of a cell from its index
+		 *
+		 * @param index the index of the cell
+		 * @return the row of the cell
+		 */
+		public int row(int index) {
+			return index / this.cols;
+		}
+
+		/**
+		 * Calculates the column of a cell from its index
+		 *
+		 * @param index the index of the cell
+		 * @return the column of the cell
+		 */
+		public int col(int index) {
+			return index % this.cols;
+		}
+
+		/**
+		 * Gets whether the cell contains a mine or not
+		 *
+		 * @param index the index of the cell
+		 * @return if the cell contains a mine
+		 */
+		public boolean isMine(int index) {
+			return (this.cells[index] & MinesweeperField.MINE_BIT) != 0;
+		}
+
+		/**
+		 * Sets whether the cell contains a mine or not
+		 *
+		 * @param index the index of the cell
+		 * @param mine  if the cell should contain a mine
+		 */
+		public void setMine(int index, boolean mine) {
+			this.setBit(index, MinesweeperField.MINE_BIT, mine);
+		}
+
+		/**
+		 * Gets the number of mines surrounding the cell
+		 *
+		 * @param index the index of the cell
+		 * @return the number of surrounding mines
+		 */
+		public int getValue(int index) {
+			return this.cells[index] & MinesweeperField.VALUE_MASK;
+		}
+
+		/**
+		 * Sets the number of mines surrounding the cell
+		 *
+		 * @param index the index of the cell
+		 * @param value the number of surrounding mines, from 0 to 8
+		 */
+		public void setValue(int index, int value) {
+			this.cells[index] = (byte) (this.cells[index] & ~MinesweeperField.VALUE_MASK
+					| value & MinesweeperField.VALUE_MASK);
+		}
+
+		/**
+		 * Gets whether the cell is flagged or not
+		 *
+		 * @param index the index of the cell
+		 * @return if the cell is flagged
+		 */
+		public boolean isFlagged(int index) {
+			return (this.cells[index] & MinesweeperField.FLAG_BIT) != 0;
+		}
+
+		/**
+		 * Sets whether the cell is flagged or not
+		 *
+		 * @param index   the index of the cell
+		 * @param flagged if the cell should be flagged
+		 */
+		public void setFlagged(int index, boolean flagged) {
+			this.setBit(index, MinesweeperField.FLAG_BIT, flagged);
+		}
+
+		/**
+		 * Gets whether the cell is covered or not
+		 *
+		 * @param index the index of the cell
+		 * @return if the cell is covered
+		 */
+		public boolean isCovered(int index) {
+			return (this.cells[index] & MinesweeperField.COVERED_BIT) != 0;
+		}
+
+		/**
+		 * Sets whether the cell is covered or not
+		 *
+		 * @param index   the index of the cell
+		 * @param covered if the cell should be covered
+		 */
+		public void setCovered(int index, boolean covered) {
+			this.setBit(index, MinesweeperField.COVERED_BIT, covered);
+		}
+
+		/**
+		 * Places the mines and surrounding mine counts of a layout onto the field
+		 * <p>
+		 * The layout must be the same size as the field, and its surrounding mines
+		 * must have been counted. Only the cells with a mine or a count other than 0
+		 * are touched.
+		 *
+		 * @param layout the layout to apply
+		 * @throws IllegalArgumentException if the layout is not the same size as the
+		 *                                  field
+		 */
+		public void applyLayout(MinesweeperLayout layout) {
+			if (layout.rows() != this.rows || layout.cols() != this.cols) {
+				throw new IllegalArgumentException("Layout of " + layout.rows() + "x" + layout.cols()
+						+ " does not fit a field of " + this.rows + "x" + this.cols);
+			}
+
+			for (int index = 0; index < this.cells.length; index++) {
+				int value = layout.getValue(index);
+				if (value != 0) {
+					this.setValue(index, value);
+				}
+			}
+			for (int row = 0; row < this.rows; row++) {
+				for (int col = 0; col < this.cols; col++) {
+					if (layout.isMine(row, col)) {
+						this.setMine(this.index(row, col), true);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Uncovers a cell, and if it has no surrounding mines, the whole opening
+		 * connected to it
+		 * <p>
+		 * The opening is filled iteratively, breadth first, using a work queue of cell
+		 * indices and a bitset of visited cells, so it runs in a single pass over the
+		 * opening without recursing or allocating. Flagged cells are never uncovered.
+		 * <p>
+		 * Use {@link #getRevealed(int)} to get the cells that were uncovered.
+		 *
+		 * @param start the index of the cell to uncover
+		 * @return the number of cells uncovered, or 0 if the cell is already uncovered
+		 *         or flagged
+		 */
+		public int reveal(int start) {
+			this.revealCount = 0;
+			if (!this.isCovered(start) || this.isFlagged(start)) {
+				return 0;
+			}
+			this.ensureRevealQueue();
+			this.revealQueue[0] = start;
+			return this.flood(1);
+		}
+
+		/**
+		 * Uncovers every covered neighbour of an uncovered number that is not flagged,
+		 * along with the openings connected to them, as a single reveal
+		 * <p>
+		 * This is known as chording. It is meant for numbers that have as many flags
+		 * around them as their value, see {@link #getRemaining(int)}, but does not
+		 * check this, so wrongly placed flags can uncover a mine.
+		 * <p>
+		 * All the neighbours are filled in the same pass, so a cell shared by two
+		 * openings is only uncovered once. Use {@link #getRevealed(int)} to get the
+		 * cells that were uncovered.
+		 *
+		 * @param index the index of the uncovered number
+		 * @return the number of cells uncovered, or 0 if the cell is covered or has
+		 *         nothing around it to uncover
+		 */
+		public int chord(int index) {
+			this.revealCount = 0;
+			if (this.isCovered(index)) {
+				return 0;
+			}
+			this.ensureRevealQueue();
+
+			int row = index / this.cols, col = index - row * this.cols, count = 0;
+			for (int newRow = row - 1; newRow <= row + 1; newRow++) {
+				for (int newCol = col - 1; newCol <= col + 1; newCol++) {
+					if (!this.contains(newRow, newCol)) {
+						continue;
+					}
+					int newIndex = this.index(newRow, newCol);
+					if (this.isCovered(newIndex) && !this.isFlagged(newIndex)) {
+						this.revealQueue[count++] = newIndex;
+					}
+				}
+			}
+			return count == 0 ? 0 : this.flood(count);
+		}
+
+		/**
+		 * Allocates the work queue and visited bitset used while revealing, if they
+		 * are not allocated yet
+		 */
+		private void ensureRevealQueue() {
+			if (this.revealQueue == null) {
+				this.revealQueue = new int[this.cells.length];
+				this.revealVisited = new long[this.cells.length + 63 >> 6];
+			}
+		}
+
+		/**
+		 * Uncovers the cells at the start of the work queue, and fills the openings
+		 * connected to them
+		 *
+		 * @param starts the number of covered, unflagged cells at the start of
+		 *               {@link #revealQueue}
+		 * @return the number of cells uncovered
+		 */
+		private int flood(int starts) {
+			final int[] queue = this.revealQueue;
+			final long[] visited = this.revealVisited;
+			int head = 0, tail = starts;
+
+			for (int i = 0; i < starts; i++) {
+				this.setCovered(queue[i], false);
+				visited[queue[i] >> 6] |= 1L << queue[i];
+			}
+
+			while (head < tail) {
+				int index = queue[head++];
+				if ((this.cells[index] & (MinesweeperField.MINE_BIT | MinesweeperField.VALUE_MASK)) != 0) {
+					continue;
+				}
+
+				// A 0 was uncovered, queue all covered cells around it
+				int row = index / this.cols, col = index - row * this.cols;
+				for (int newRow = row - 1; newRow <= row + 1; newRow++) {
+					for (int newCol = col - 1; newCol <= col + 1; newCol++) {
+						if (!this.contains(newRow, newCol)) {
+							continue;
+						}
+						int newIndex = this.index(newRow, newCol);
+						if ((visited[newIndex >> 6] & 1L << newIndex) != 0 || !this.isCovered(newIndex)
+								|| this.isFlagged(newIndex)) {
+							continue;
+						}
+
+						this.setCovered(newIndex, false);
+						visited[newIndex >> 6] |= 1L << newIndex;
+						queue[tail++] = newIndex;
+					}
+				}
+			}
+
+			// Only the queued cells were marked, so only those need to be cleared
+			for (int i = 0; i < tail; i++) {
+				visited[queue[i] >> 6] &= ~(1L << queue[i]);
+			}
+
+			this.revealCount = tail;
+			return tail;
+		}
+
+		/**
+		 * Gets a cell that was uncovered by the last call to {@link #reveal(int)} or
+		 * {@link #chord(int)}
+		 *
+		 * @param i the position in the reveal order, from 0 until the number of cells
+		 *          uncovered
+		 * @return the index of the uncovered cell
+		 */
+		public int getRevealed(int i) {
+			if (i < 0 || i >= this.revealCount) {
+				throw new IndexOutOfBoundsException("Reveal position " + i + " out of " + this.revealCount);
+			}
+			return this.revealQueue[i];
+		}
+
+		/**
+		 * Gets whether any mine on the field has been uncovered
+		 *
+		 * @return if any mine is uncovered
+		 */
+		public boolean isExploded() {
+			return this.exploded;
+		}
+
+		/**
+		 * Gets the number of cells without a mine that are still covered
+		 *
+		 * @return the number of covered non-mines
+		 */
+		public int getCoveredSafeCount() {
+			return this.coveredSafeCount;
+		}
+
+		/**
+		 * Gets the number of flagged cells on the field
+		 *
+		 * @return the number of flags placed
+		 */
+		public int getFlagCount() {
+			return this.flagCount;
+		}
+
+		/**
+		 * Gets whether a cell is on the frontier, that is, it is covered and next to
+		 * at least one uncovered cell
+		 *
+		 * @param index the index of the cell
+		 * @return if the cell is on the frontier
+		 */
+		public boolean isFrontier(int index) {
+			return (this.frontier[index >> 6] & 1L << index) != 0;
+		}
+
+		/**
+		 * Finds the next cell on the frontier
+		 *
+		 * @param from the index to start searching from, inclusive
+		 * @return the index of the first frontier cell at or after {@code from}, or -1
+		 *         if there is none
+		 */
+		public int nextFrontier(int from) {
+			if (from >= this.cells.length) {
+				return -1;
+			}
+			int word = from >> 6;
+			long bits = this.frontier[word] & -1L << from;
+			while (bits == 0) {
+				if (++word == this.frontier.length) {
+					return -1;
+				}
+				bits = this.frontier[word];
+			}
+			return (word << 6) + Long.numberOfTrailingZeros(bits);
+		}
+
+		/**
+		 * Gets the number of cells on the frontier
+		 *
+		 * @return the number of frontier cells
+		 */
+		public int getFrontierSize() {
+			return this.frontierSize;
+		}
+
+		/**
+		 * Gets the number of mines surrounding an uncovered cell that are not flagged
+		 * yet
+		 * <p>
+		 * This is the number shown on the cell minus its flagged neighbours, so it is
+		 * negative if too many neighbours are flagged.
+		 *
+		 * @param index the index of the uncovered cell
+		 * @return the number of unflagged surrounding mines, or 0 if the cell is
+		 *         covered
+		 */
+		public int getRemaining(int index) {
+			return this.remaining[index];
+		}
+
+		/**
+		 * Gets the revision of the field, which changes whenever a cell is uncovered
+		 * or covered, or the field is reset
+		 * <p>
+		 * Anything worked out from the numbers on the field stays valid for as long as
+		 * the revision stays the same.
+		 *
+		 * @return the revision of the field
+		 */
+		public int getRevision() {
+			return this.revision;
+		}
+
+		/**
+		 * Gets the number of times a cell was uncovered, covered, flagged or
+		 * unflagged, or the field was reset
+		 *
+		 * @return the number of changes
+		 */
+		public int getChangeCount() {
+			return this.changeCount;
+		}
+
+		/**
+		 * Copies the packed state of every cell, laid out as described on
+		 * {@link MinesweeperField}
+		 *
+		 * @return a copy of the cells
+		 */
+		public byte[] copyCells() {
+			return this.cells.clone();
+		}
+
+		/**
+		 * Sets or clears a single state bit of a cell
+		 * <p>
+		 * The running counters are updated from the difference between the old and
+		 * the new state of the cell, so they never have to be recounted.
+		 *
+		 * @param index the index of the cell
+		 * @param bit   the bit to update
+		 * @param set   whether the bit should be set or cleared
+		 */
+		private void setBit(int index, int bit, boolean set) {
+			int oldCell = this.cells[index];
+			int newCell = set ? oldCell | bit : oldCell & ~bit;
+			if (oldCell == newCell) {
+				return;
+			}
+			this.cells[index] = (byte) newCell;
+
+			final int stateMask = MinesweeperField.MINE_BIT | MinesweeperField.COVERED_BIT;
+			if ((oldCell & stateMask) == MinesweeperField.COVERED_BIT) {
+				this.coveredSafeCount--;
+			}
+			if ((newCell & stateMask) == MinesweeperField.COVERED_BIT) {
+				this.coveredSafeCount++;
+			}
+			if ((newCell & stateMask) == MinesweeperField.MINE_BIT) {
+				this.exploded = true;
+			}
+			if (bit == MinesweeperField.FLAG_BIT) {
+				this.flagCount += set ? 1 : -1;
+				this.updateNeighbours(index, false, set ? -1 : 1);
+				this.changeCount++;
+			} else if (bit == MinesweeperField.COVERED_BIT) {
+				this.updateNeighbours(index, true, set ? -1 : 1);
+				this.revision++;
+				this.changeCount++;
+			}
+		}
+
+		/**
+		 * Updates the frontier index around a cell that was just uncovered, covered,
+		 * flagged or unflagged
+		 *
+		 * @param index   the index of the cell that changed
+		 * @param covered whether the covered state changed, otherwise the flagged
+		 *                state changed
+		 * @param delta   1 if the cell was uncovered or unflagged, -1 if it was
+		 *                covered or flagged
+		 */
+		private void updateNeighbours(int index, boolean covered, int delta) {
+			int row = index / this.cols, col = index - row * this.cols;
+			int flagged = 0;
+			for (int newRow = Math.max(row - 1, 0); newRow <= Math.min(row + 1, this.rows - 1); newRow++) {
+				for (int newCol = Math.max(col - 1, 0); newCol <= Math.min(col + 1, this.cols - 1); newCol++) {
+					int newIndex = this.index(newRow, newCol);
+					if (newIndex == index) {
+						continue;
+					}
+					int cell = this.cells[newIndex];
+					if (!covered) {
+						// A flag only changes what is left around the uncovered cells next to it
+						if ((cell & MinesweeperField.COVERED_BIT) == 0) {
+							this.remaining[newIndex] += delta;
+						}
+						continue;
+					}
+
+					this.openNeighbours[newIndex] += delta;
+					if ((cell & MinesweeperField.COVERED_BIT) != 0) {
+						this.setFrontier(newIndex, this.openNeighbours[newIndex] > 0);
+					}
+					if ((cell & MinesweeperField.FLAG_BIT) != 0) {
+						flagged++;
+					}
+				}
+			}
+
+			if (covered) {
+				// The cell itself leaves the frontier when uncovered, and may rejoin it when covered
+				this.setFrontier(index, delta < 0 && this.openNeighbours[index] > 0);
+				this.remaining[index] = (byte) (delta > 0 ? this.getValue(index) - flagged : 0);
+			}
+		}
+
+		/**
+		 * Adds a cell to or removes it from the frontier
+		 *
+		 * @param index    the index of the cell
+		 * @param frontier whether the cell should be on the frontier
+		 */
+		private void setFrontier(int index, boolean frontier) {
+			long mask = 1L << index;
+			if (((this.frontier[index >> 6] & mask) != 0) == frontier) {
+				return;
+			}
+			this.frontier[index >> 6] ^= mask;
+			this.frontierSize += frontier ? 1 : -1;
+		}
+	}
+
+	/**
+	 * This is the mine layout class for the Minesweeper game
+	 * <p>
+	 * This holds where the mines are on a board, and how many mines surround every
+	 * cell, separately from the state of the game. The mines are stored as one
+	 * bitmask per row, 64 columns to a {@code long} word, with the unused bits at
+	 * the end of each row always clear.
+	 * <p>
+	 * Storing the mines as bitmasks lets the surrounding mines be counted for 64
+	 * cells at once. Shifting a row word by one bit lines every cell up with its
+	 * left or right neighbour, and the eight neighbour masks are then added
+	 * together bitwise, giving the count of every cell as 4 separate bit-planes.
+	 * <p>
+	 * A layout holds no reference to any widget, so it can be built on any thread
+	 * and then handed to a {@link MinesweeperField} with
+	 * {@link MinesweeperField#applyLayout(MinesweeperLayout)}.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperLayout {
+		/**
+		 * The position of the bits of a seed that hold the cell its layout is
+		 * generated for, see {@link #seedFor(long, int)}. The 21 bits above it are
+		 * enough for every cell of the largest board.
+		 */
+		private static final int CELL_SHIFT = 43;
+
+		/**
+		 * Number of rows in the layout
+		 */
+		private final int rows;
+		/**
+		 * Number of columns in the layout
+		 */
+		private final int cols;
+		/**
+		 * Number of {@code long} words used by each row
+		 */
+		private final int stride;
+		/**
+		 * The mines of every row, {@link #stride} words per row
+		 */
+		private final long[] mines;
+		/**
+		 * The number of mines surrounding every cell, indexed like
+		 * {@link MinesweeperField}. Only filled in for cells without a mine
+		 */
+		private final byte[] values;
+		/**
+		 * The number of mines placed
+		 */
+		private int mineCount = 0;
+
+		/**
+		 * Creates a layout without any mines
+		 *
+		 * @param rows the number of rows
+		 * @param cols the number of columns
+		 */
+		public MinesweeperLayout(int rows, int cols) {
+			this.rows = rows;
+			this.cols = cols;
+			this.stride = cols + 63 >> 6;
+			this.mines = new long[rows * this.stride];
+			this.values = new byte[rows * cols];
+		}
+
+		/**
+		 * Gets the number of rows in the layout
+		 *
+		 * @return the number of rows
+		 */
+		public int rows() {
+			return this.rows;
+		}
+
+		/**
+		 * Gets the number of columns in the layout
+		 *
+		 * @return the number of columns
+		 */
+		public int cols() {
+			return this.cols;
+		}
+
+		/**
+		 * Gets the number of mines placed in the layout
+		 *
+		 * @return the number of mines
+		 */
+		public int mineCount() {
+			return this.mineCount;
+		}
+
+		/**
+		 * Gets whether a cell contains a mine or not
+		 *
+		 * @param row the row of the cell
+		 * @param col the column of the cell
+		 * @return if the cell contains a mine
+		 */
+		public boolean isMine(int row, int col) {
+			return (this.mines[row * this.stride + (col >> 6)] & 1L << col) != 0;
+		}
+
+		/**
+		 * Places a mine on a cell
+		 *
+		 * @param row the row of the cell
+		 * @param col the column of the cell
+		 */
+		public void setMine(int row, int col) {
+			int word = row * this.stride + (col >> 6);
+			if ((this.mines[word] & 1L << col) == 0) {
+				this.mines[word] |= 1L << col;
+				this.mineCount++;
+			}
+		}
+
+		/**
+		 * Gets the number of mines surrounding a cell
+		 * <p>
+		 * This is only valid after {@link #countNeighbours()} has been called.
+		 *
+		 * @param index the index of the cell, counted row by row
+		 * @return the number of surrounding mines
+		 */
+		public int getValue(int index) {
+			return this.values[index];
+		}
+
+		/**
+		 * Creates the layout of a board, with its mines placed
+		 * <p>
+		 * The mines are picked by a random number generator started from the seed of
+		 * the cell, see {@link #seedFor(long, int)}, keeping the cell and the cells
+		 * around it clear, see {@link #placeMines(int, int, int, SplittableRandom)}.
+		 * The same difficulty, seed and cell therefore always give the same layout,
+		 * whether the layout was made ahead of time or not. The surrounding mines are
+		 * not counted yet.
+		 *
+		 * @param difficulty the difficulty of the board
+		 * @param seed       the seed to pick the mines with
+		 * @param avoidRow   the row of the cell to generate the layout for
+		 * @param avoidCol   the column of the cell to generate the layout for
+		 * @return the layout
+		 */
+		public static MinesweeperLayout generate(MinesweeperDifficulty difficulty, long seed, int avoidRow,
+				int avoidCol) {
+			MinesweeperLayout layout = new MinesweeperLayout(difficulty.rows(), difficulty.cols());
+			long cellSeed = MinesweeperLayout.seedFor(seed, avoidRow * difficulty.cols() + avoidCol);
+			layout.placeMines(difficulty.mines(), avoidRow, avoidCol, new SplittableRandom(cellSeed));
+			return layout;
+		}
+
+		/**
+		 * Puts the cell a layout is generated for into a seed
+		 * <p>
+		 * The top bits of the seed hold the index of the cell plus 1, so that the seed
+		 * alone is enough to generate the same layout again, no matter which cell is
+		 * uncovered first. A seed whose top bits are 0 holds no cell.
+		 *
+		 * @param seed  the seed
+		 * @param index the index of the cell, or {@code -1} to hold no cell
+		 * @return the seed holding the cell
+		 * @see #cellOf(long)
+		 */
+		public static long seedFor(long seed, int index) {
+			return seed & (1L << MinesweeperLayout.CELL_SHIFT) - 1 | (long) (index + 1) << MinesweeperLayout.CELL_SHIFT;
+		}
+
+		/**
+		 * Gets the cell a seed holds
+		 *
+		 * @param seed the seed
+		 * @return the index of the cell, or {@code -1} if the seed holds no cell
+		 * @see #seedFor(long, int)
+		 */
+		public static int cellOf(long seed) {
+			return (int) (seed >>> MinesweeperLayout.CELL_SHIFT) - 1;
+		}
+
+		/**
+		 * Places mines on randomly picked cells
+		 * <p>
+		 * The candidate cells are gathered once, leaving out the cell to avoid and the
+		 * cells around it. The mines are then picked with a partial Fisher-Yates
+		 * shuffle, which swaps a random remaining candidate into place for each mine.
+		 * This always finishes in a single pass over the layout, no matter how dense
+		 * the mines are.
+		 *
+		 * @param mines    the number of mines to place
+		 * @param avoidRow the row of the cell to keep clear of mines along with the
+		 *                 cells around it, or {@code -2} if there is none
+		 * @param avoidCol the column of the cell to keep clear, or {@code -2} if there
+		 *                 is none
+		 * @param random   the random number generator to pick cells with
+		 * @throws IllegalArgumentException if there are not enough candidate cells to
+		 *                                  place all the mines on
+		 */
+		public void placeMines(int mines, int avoidRow, int avoidCol, SplittableRandom random) {
+			// The number of cells within the layout that are kept clear
+			int avoided = 0;
+			for (int row = avoidRow - 1; row <= avoidRow + 1; row++) {
+				for (int col = avoidCol - 1; col <= avoidCol + 1; col++) {
+					if (row >= 0 && row < this.rows && col >= 0 && col < this.cols) {
+						avoided++;
+					}
+				}
+			}
+
+			int candidateCount = this.values.length - avoided;
+			if (mines < 0 || mines > candidateCount) {
+				throw new IllegalArgumentException("Cannot place " + mines + " mines on " + candidateCount
+						+ " available cells");
+			}
+
+			// Gather every cell outside of the cleared area
+			int[] candidates = new int[candidateCount];
+			int count = 0;
+			for (int row = 0; row < this.rows; row++) {
+				boolean nearRow = Math.abs(row - avoidRow) <= 1;
+				for (int col = 0; col < this.cols; col++) {
+					if (!nearRow || Math.abs(col - avoidCol) > 1) {
+						candidates[count++] = row * this.cols + col;
+					}
+				}
+			}
+
+			// Shuffle only as far as the number of mines required
+			for (int i = 0; i < mines; i++) {
+				int j = i + random.nextInt(candidateCount - i);
+				int picked = candidates[j];
+				candidates[j] = candidates[i];
+				candidates[i] = picked;
+
+				this.setMine(picked / this.cols, picked % this.cols);
+			}
+		}
+
+		/**
+		 * Counts the mines surrounding every cell without a mine
+		 *
+		 * @see #countNeighbours(int, int)
+		 */
+		public void countNeighbours() {
+			this.countNeighbours(0, this.rows);
+		}
+
+		/**
+		 * Counts the mines surrounding every cell without a mine, in a band of rows
+		 * <p>
+		 * For every word of a row, the mines to the left and right of each cell in the
+		 * rows above, the same row and below are lined up by shifting, borrowing the
+		 * edge bit from the neighbouring word. The three cells of the rows above and
+		 * below are added into 2-bit sums, and the two cells beside the cell into
+		 * another, and the three sums are added into the 4-bit count of each cell.
+		 * Only the counts that are not 0 are written out.
+		 * <p>
+		 * Rows in the band only read the rows next to them, and only write their own
+		 * counts, so separate bands can be counted at the same time.
+		 *
+		 * @param fromRow the first row to count, inclusive
+		 * @param toRow   the last row to count, exclusive
+		 */
+		public void countNeighbours(int fromRow, int toRow) {
+			final int lastBits = this.cols & 63;
+			final long lastMask = lastBits == 0 ? -1L : (1L << lastBits) - 1;
+
+			for (int row = fromRow; row < toRow; row++) {
+				for (int word = 0; word < this.stride; word++) {
+					// Mines above the cells: left, middle, right
+					long ul = this.shiftedLeft(row - 1, word), uc = this.word(row - 1, word),
+							ur = this.shiftedRight(row - 1, word);
+					// Mines beside the cells
+					long ml = this.shiftedLeft(row, word), mr = this.shiftedRight(row, word);
+					// Mines below the cells
+					long dl = this.shiftedLeft(row + 1, word), dc = this.word(row + 1, word),
+							dr = this.shiftedRight(row + 1, word);
+
+					// 2-bit sums of each group: a = above (0-3), m = beside (0-2), d = below (0-3)
+					long a0 = ul ^ uc ^ ur, a1 = ul & uc | ul & ur | uc & ur;
+					long m0 = ml ^ mr, m1 = ml & mr;
+					long d0 = dl ^ dc ^ dr, d1 = dl & dc | dl & dr | dc & dr;
+
+					// 4-bit sum of all three groups (0-8)
+					long b0 = a0 ^ m0 ^ d0;
+					long carry = a0 & m0 | a0 & d0 | m0 & d0;
+					long s1 = a1 ^ m1 ^ d1, c1 = a1 & m1 | a1 & d1 | m1 & d1;
+					long b1 = s1 ^ carry;
+					long c2 = s1 & carry;
+					long b2 = c1 ^ c2, b3 = c1 & c2;
+
+					// Write out every non-zero count of a cell without a mine
+					long mask = word == this.stride - 1 ? lastMask : -1L;
+					long bits = (b0 | b1 | b2 | b3) & ~this.word(row, word) & mask;
+					int base = row * this.cols + (word << 6);
+					while (bits != 0L) {
+						int bit = Long.numberOfTrailingZeros(bits);
+						this.values[base + bit] = (byte) ((b0 >>> bit & 1) | (b1 >>> bit & 1) << 1
+								| (b2 >>> bit & 1) << 2 | (b3 >>> bit & 1) << 3);
+						bits &= bits - 1;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Counts the mines surrounding every cell without a mine, splitting the rows
+		 * into bands that are counted on a fork/join pool
+		 * <p>
+		 * Bands are split in half until they hold at most
+		 * {@link CountTask#BAND_CELLS} cells. Each band reads the rows just outside it
+		 * to count its edge rows, so no extra work is needed to join the bands back
+		 * together. This method returns once every band has been counted.
+		 *
+		 * @param pool the pool to count the bands on
+		 * @see #countNeighbours(int, int)
+		 */
+		public void countNeighbours(ForkJoinPool pool) {
+			pool.invoke(new CountTask(this, 0, this.rows));
+		}
+
+		/**
+		 * Gets a word of mines, treating everything outside the layout as empty
+		 *
+		 * @param row  the row of the word
+		 * @param word the position of the word in the row
+		 * @return the mines in that word
+		 */
+		private long word(int row, int word) {
+			if (row < 0 || row >= this.rows || word < 0 || word >= this.stride) {
+				return 0L;
+			}
+			return this.mines[row * this.stride + word];
+		}
+
+		/**
+		 * Gets a word of mines, moved one column to the right, so that each bit holds
+		 * the mine to the left of that column
+		 *
+		 * @param row  the row of the word
+		 * @param word the position of the word in the row
+		 * @return the mines to the left of each column in that word
+		 */
+		private long shiftedLeft(int row, int word) {
+			return this.word(row, word) << 1 | this.word(row, word - 1) >>> 63;
+		}
+
+		/**
+		 * Gets a word of mines, moved one column to the left, so that each bit holds
+		 * the mine to the right of that column
+		 *
+		 * @param row  the row of the word
+		 * @param word the position of the word in the row
+		 * @return the mines to the right of each column in that word
+		 */
+		private long shiftedRight(int row, int word) {
+			return this.word(row, word) >>> 1 | this.word(row, word + 1) << 63;
+		}
+
+		/**
+		 * This is the task counting the surrounding mines of a band of rows
+		 */
+		private static final class CountTask extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * The largest number of cells counted by a single task without splitting
+			 */
+			private static final int BAND_CELLS = 1 << 14;
+
+			/**
+			 * The layout to count
+			 */
+			private final MinesweeperLayout layout;
+			/**
+			 * The band of rows to count, from inclusive and to exclusive
+			 */
+			private final int fromRow, toRow;
+
+			/**
+			 * Creates a task counting a band of rows
+			 *
+			 * @param layout  the layout to count
+			 * @param fromRow the first row to count, inclusive
+			 * @param toRow   the last row to count, exclusive
+			 */
+			public CountTask(MinesweeperLayout layout, int fromRow, int toRow) {
+				this.layout = layout;
+				this.fromRow = fromRow;
+				this.toRow = toRow;
+			}
+
+			/**
+			 * {@inheritDoc}
+			 * <p>
+			 * Small bands are counted straight away, larger bands are split in half and
+			 * counted in parallel.
+			 */
+			@Override
+			protected void compute() {
+				int bandRows = this.toRow - this.fromRow;
+				if (bandRows < 2 || (long) bandRows * this.layout.cols() <= CountTask.BAND_CELLS) {
+					this.layout.countNeighbours(this.fromRow, this.toRow);
+					return;
+				}
+
+				int middleRow = this.fromRow + bandRows / 2;
+				ForkJoinTask.invokeAll(new CountTask(this.layout, this.fromRow, middleRow),
+						new CountTask(this.layout, middleRow, this.toRow));
+			}
+		}
+	}
+
+	/**
+	 * This is the solver class for the Minesweeper game
+	 * <p>
+	 * The solver keeps track of what a player can know about a board: which cells
+	 * are uncovered along with their numbers, and which cells are known to be
+	 * mines. From that, it deduces cells that are certainly safe or certainly a
+	 * mine, using only two rules:
+	 * <ul>
+	 * <li>Single cell: if a number has as many known mines around it as its value,
+	 * all its other covered neighbours are safe; if it has as many covered
+	 * neighbours left as mines left, they are all mines
+	 * <li>Subset: if the covered neighbours of one number are all neighbours of
+	 * another number, the remaining neighbours of the other number hold the
+	 * difference between their mines left, so they are either all safe or all
+	 * mines when that difference is 0 or matches their count
+	 * </ul>
+	 * Numbers are only looked at again when a cell next to them becomes known, so
+	 * solving a whole board costs about the same as uncovering it. The solver never
+	 * guesses, so for the same cells it always gives the same deductions.
+	 * <p>
+	 * This class is not thread-safe, but separate solvers can be used on separate
+	 * threads.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperSolver {
+		/**
+		 * The status of a cell that is not known yet
+		 */
+		private static final byte UNKNOWN = 0;
+		/**
+		 * The status of a cell that is uncovered, and whose number is known
+		 */
+		private static final byte SAFE = 1;
+		/**
+		 * The status of a cell that is known to be a mine
+		 */
+		private static final byte MINE = 2;
+
+		/**
+		 * Number of rows on the board
+		 */
+		private final int rows;
+		/**
+		 * Number of columns on the board
+		 */
+		private final int cols;
+		/**
+		 * The status of every cell
+		 */
+		private final byte[] status;
+		/**
+		 * The number of every uncovered cell
+		 */
+		private final byte[] values;
+
+		/**
+		 * The uncovered cells to look at again, as a ring buffer
+		 */
+		private final int[] queue;
+		/**
+		 * The cells currently in {@link #queue}, one bit per cell
+		 */
+		private final long[] queued;
+		/**
+		 * The start and length of {@link #queue}
+		 */
+		private int head = 0, queueSize = 0;
+
+		/**
+		 * The number of cells that are uncovered
+		 */
+		private int safeCount = 0;
+		/**
+		 * Whether the last deduced cell is a mine
+		 */
+		private boolean deducedMine = false;
+
+		/**
+		 * Creates a solver where no cell is known yet
+		 *
+		 * @param rows the number of rows
+		 * @param cols the number of columns
+		 */
+		public MinesweeperSolver(int rows, int cols) {
+			this.rows = rows;
+			this.cols = cols;
+			this.status = new byte[rows * cols];
+			this.values = new byte[rows * cols];
+			this.queue = new int[rows * cols];
+			this.queued = new long[rows * cols + 63 >> 6];
+		}
+
+		/**
+		 * Checks whether a layout can be fully solved from its first uncovered cell
+		 * without guessing
+		 * <p>
+		 * The solver plays the board: the first cell is uncovered, opening up any 0s,
+		 * and then every deduced safe cell is uncovered and every deduced mine is
+		 * marked, until nothing more can be deduced. The layout is solvable if every
+		 * safe cell was uncovered by then.
+		 *
+		 * @param layout   the layout to solve, with its surrounding mines counted
+		 * @param startRow the row of the first uncovered cell
+		 * @param startCol the column of the first uncovered cell
+		 * @return whether the layout can be solved without guessing
+		 */
+		public static boolean isSolvable(MinesweeperLayout layout, int startRow, int startCol) {
+			final int cols = layout.cols();
+			MinesweeperSolver solver = new MinesweeperSolver(layout.rows(), cols);
+			int[] openings = new int[layout.rows() * cols];
+
+			int next = startRow * cols + startCol;
+			while (next != -1) {
+				if (solver.isDeducedMine()) {
+					solver.markMine(next);
+				} else if (!solver.isKnown(next)) {
+					// Uncover the cell, along with the whole opening if it is a 0. Cells are
+					// marked when queued, so each one is queued at most once
+					int count = 0;
+					solver.markSafe(next, layout.getValue(next));
+					openings[count++] = next;
+					while (count > 0) {
+						int index = openings[--count];
+						if (layout.getValue(index) != 0) {
+							continue;
+						}
+
+						int row = index / cols, col = index % cols;
+						for (int newRow = row - 1; newRow <= row + 1; newRow++) {
+							for (int newCol = col - 1; newCol <= col + 1; newCol++) {
+								int newIndex = newRow * cols + newCol;
+								if (solver.contains(newRow, newCol) && !solver.isKnown(newIndex)) {
+									solver.markSafe(newIndex, layout.getValue(newIndex));
+									openings[count++] = newIndex;
+								}
+							}
+						}
+					}
+				}
+				next = solver.deduce();
+			}
+
+			return solver.safeCount == layout.rows() * cols - layout.mineCount();
+		}
+
+		/**
+		 * Records a cell as uncovered
+		 *
+		 * @param index the index of the cell
+		 * @param value the number of mines surrounding the cell
+		 */
+		public void markSafe(int index, int value) {
+			if (this.status[index] == MinesweeperSolver.SAFE) {
+				return;
+			}
+			this.status[index] = MinesweeperSolver.SAFE;
+			this.values[index] = (byte) value;
+			this.safeCount++;
+			this.enqueue(index);
+			this.enqueueAround(index);
+		}
+
+		/**
+		 * Records a cell as uncovered, without looking at it or its neighbours again
+		 * <p>
+		 * This is used to load a board that is already being played, after which only
+		 * the numbers worth looking at are queued with {@link #watch(int)}.
+		 *
+		 * @param index the index of the cell
+		 * @param value the number of mines surrounding the cell
+		 */
+		public void markUncovered(int index, int value) {
+			if (this.status[index] == MinesweeperSolver.SAFE) {
+				return;
+			}
+			this.status[index] = MinesweeperSolver.SAFE;
+			this.values[index] = (byte) value;
+			this.safeCount++;
+		}
+
+		/**
+		 * Queues an uncovered cell to be looked at by {@link #deduce()}
+		 *
+		 * @param index the index of the uncovered cell
+		 */
+		public void watch(int index) {
+			this.enqueue(index);
+		}
+
+		/**
+		 * Records a cell as a mine
+		 *
+		 * @param index the index of the cell
+		 */
+		public void markMine(int index) {
+			if (this.status[index] == MinesweeperSolver.MINE) {
+				return;
+			}
+			this.status[index] = MinesweeperSolver.MINE;
+			this.enqueueAround(index);
+		}
+
+		/**
+		 * Gets whether a cell is uncovered or known to be a mine
+		 *
+		 * @param index the index of the cell
+		 * @return if the cell is known
+		 */
+		public boolean isKnown(int index) {
+			return this.status[index] != MinesweeperSolver.UNKNOWN;
+		}
+
+		/**
+		 * Finds the next cell that is certainly safe or certainly a mine
+		 * <p>
+		 * The deduced cell is not recorded. Use {@link #isDeducedMine()} to find out
+		 * which of the two it is, and record it before deducing the next cell.
+		 *
+		 * @return the index of the deduced cell, or {@code -1} if nothing can be
+		 *         deduced
+		 */
+		public int deduce() {
+			while (this.queueSize > 0) {
+				int index = this.queue[this.head];
+				this.head = (this.head + 1) % this.queue.length;
+				this.queueSize--;
+				this.queued[index >> 6] &= ~(1L << index);
+
+				int found = this.deduceAround(index);
+				if (found != -1) {
+					// There may be more to deduce from this cell later
+					this.enqueue(index);
+					return found;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Gets whether the last cell returned by {@link #deduce()} is a mine
+		 *
+		 * @return if the deduced cell is a mine, otherwise it is safe
+		 */
+		public boolean isDeducedMine() {
+			return this.deducedMine;
+		}
+
+		/**
+		 * Applies both rules to an uncovered cell
+		 *
+		 * @param index the index of the uncovered cell
+		 * @return the index of a deduced cell, or {@code -1} if there is none
+		 */
+		private int deduceAround(int index) {
+			int row = index / this.cols, col = index % this.cols;
+			int unknown = this.count(row, col, MinesweeperSolver.UNKNOWN);
+			if (unknown == 0) {
+				return -1;
+			}
+			int remaining = this.values[index] - this.count(row, col, MinesweeperSolver.MINE);
+
+			// Single cell rule
+			if (remaining == 0 || remaining == unknown) {
+				return this.deduced(this.firstUnknown(row, col, -2, -2), remaining != 0);
+			}
+
+			// Subset rule, against every number that shares a neighbour
+			for (int otherRow = row - 2; otherRow <= row + 2; otherRow++) {
+				for (int otherCol = col - 2; otherCol <= col + 2; otherCol++) {
+					if (!this.contains(otherRow, otherCol) || (otherRow == row && otherCol == col)) {
+						continue;
+					}
+					int other = otherRow * this.cols + otherCol;
+					if (this.status[other] != MinesweeperSolver.SAFE) {
+						continue;
+					}
+					int otherUnknown = this.count(otherRow, otherCol, MinesweeperSolver.UNKNOWN);
+					if (otherUnknown == 0) {
+						continue;
+					}
+					int otherRemaining = this.values[other] - this.count(otherRow, otherCol, MinesweeperSolver.MINE);
+					int shared = this.countShared(row, col, otherRow, otherCol);
+
+					// This cell's unknowns are all around the other cell
+					if (shared == unknown && otherUnknown > unknown) {
+						int mines = otherRemaining - remaining;
+						if (mines == 0 || mines == otherUnknown - unknown) {
+							return this.deduced(this.firstUnknown(otherRow, otherCol, row, col), mines != 0);
+						}
+					}
+					// The other cell's unknowns are all around this cell
+					if (shared == otherUnknown && unknown > otherUnknown) {
+						int mines = remaining - otherRemaining;
+						if (mines == 0 || mines == unknown - otherUnknown) {
+							return this.deduced(this.firstUnknown(row, col, otherRow, otherCol), mines != 0);
+						}
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Remembers what kind of cell was deduced
+		 *
+		 * @param index the index of the deduced cell
+		 * @param mine  whether the cell is a mine
+		 * @return the index of the deduced cell
+		 */
+		private int deduced(int index, boolean mine) {
+			this.deducedMine = mine;
+			return index;
+		}
+
+		/**
+		 * Counts the neighbours of a cell with a status
+		 *
+		 * @param row    the row of the cell
+		 * @param col    the column of the cell
+		 * @param status the status to count
+		 * @return the number of neighbours with that status
+		 */
+		private int count(int row, int col, byte status) {
+			int count = 0;
+			for (int newRow = row - 1; newRow <= row + 1; newRow++) {
+				for (int newCol = col - 1; newCol <= col + 1; newCol++) {
+					if (this.contains(newRow, newCol) && this.status[newRow * this.cols + newCol] == status
+							&& (newRow != row || newCol != col)) {
+						count++;
+					}
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Counts the unknown cells that are neighbours of both cells
+		 *
+		 * @param row      the row of the first cell
+		 * @param col      the column of the first cell
+		 * @param otherRow the row of the second cell
+		 * @param otherCol the column of the second cell
+		 * @return the number of shared unknown neighbours
+		 */
+		private int countShared(int row, int col, int otherRow, int otherCol) {
+			int count = 0;
+			for (int newRow = Math.max(row, otherRow) - 1; newRow <= Math.min(row, otherRow) + 1; newRow++) {
+				for (int newCol = Math.max(col, otherCol) - 1; newCol <= Math.min(col, otherCol) + 1; newCol++) {
+					if (this.contains(newRow, newCol)
+							&& this.status[newRow * this.cols + newCol] == MinesweeperSolver.UNKNOWN) {
+						count++;
+					}
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Finds the first unknown neighbour of a cell that is not a neighbour of
+		 * another cell
+		 *
+		 * @param row          the row of the cell
+		 * @param col          the column of the cell
+		 * @param excludedRow  the row of the other cell, or {@code -2} if there is none
+		 * @param excludedCol  the column of the other cell, or {@code -2} if there is
+		 *                     none
+		 * @return the index of the unknown neighbour
+		 */
+		private int firstUnknown(int row, int col, int excludedRow, int excludedCol) {
+			for (int newRow = row - 1; newRow <= row + 1; newRow++) {
+				for (int newCol = col - 1; newCol <= col + 1; newCol++) {
+					if (!this.contains(newRow, newCol)
+							|| this.status[newRow * this.cols + newCol] != MinesweeperSolver.UNKNOWN) {
+						continue;
+					}
+					if (excludedRow != -2 && Math.abs(newRow - excludedRow) <= 1
+							&& Math.abs(newCol - excludedCol) <= 1) {
+						continue;
+					}
+					return newRow * this.cols + newCol;
+				}
+			}
+			throw new IllegalStateException("No unknown neighbour around " + row + "," + col);
+		}
+
+		/**
+		 * Queues every uncovered neighbour of a cell to be looked at again
+		 *
+		 * @param index the index of the cell
+		 */
+		private void enqueueAround(int index) {
+			int row = index / this.cols, col = index % this.cols;
+			for (int newRow = row - 1; newRow <= row + 1; newRow++) {
+				for (int newCol = col - 1; newCol <= col + 1; newCol++) {
+					if (this.contains(newRow, newCol)
+							&& this.status[newRow * this.cols + newCol] == MinesweeperSolver.SAFE) {
+						this.enqueue(newRow * this.cols + newCol);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Queues a cell to be looked at again, if it is not queued already
+		 *
+		 * @param index the index of the cell
+		 */
+		private void enqueue(int index) {
+			if ((this.queued[index >> 6] & 1L << index) != 0) {
+				return;
+			}
+			this.queued[index >> 6] |= 1L << index;
+			this.queue[(this.head + this.queueSize) % this.queue.length] = index;
+			this.queueSize++;
+		}
+
+		/**
+		 * Gets whether a row,col location is on the board
+		 *
+		 * @param row the row of the cell
+		 * @param col the column of the cell
+		 * @return if the location is on the board
+		 */
+		private boolean contains(int row, int col) {
+			return row >= 0 && row < this.rows && col >= 0 && col < this.cols;
+		}
+	}
+
+	/**
+	 * This is the hint class for the Minesweeper game
+	 * <p>
+	 * A hint is a covered cell that is certainly safe, or certainly a mine, going
+	 * only by the numbers uncovered so far. Flags are ignored at first, as the
+	 * player may have placed them wrongly. Mines that are already flagged are not
+	 * given as hints, so if every cell found that way is a flagged mine, the flags
+	 * are trusted and the numbers are looked at again, which finds the cells that
+	 * could be chorded or deduced from the flags.
+	 * <p>
+	 * The cells are copied when the hint is created, on the main thread, along with
+	 * the numbers next to the frontier of the field, as only those can lead to a
+	 * deduction. The hint can then be solved on any thread with
+	 * {@link MinesweeperSolver}, without touching the field again.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperHint {
+		/**
+		 * Number of rows on the board
+		 */
+		private final int rows;
+		/**
+		 * Number of columns on the board
+		 */
+		private final int cols;
+		/**
+		 * The packed state of every cell, copied from the field
+		 */
+		private final byte[] cells;
+		/**
+		 * The uncovered cells next to the frontier
+		 */
+		private final int[] numbers;
+		/**
+		 * The number of cells in {@link #numbers}
+		 */
+		private int numberCount = 0;
+
+		/**
+		 * The index of the cell found, or -1 if none was found
+		 */
+		private int index = -1;
+		/**
+		 * Whether the cell found is a mine
+		 */
+		private boolean mine = false;
+		/**
+		 * Whether the cell found relies on the flags being right
+		 */
+		private boolean trustsFlags = false;
+
+		/**
+		 * Copies what is needed to find a hint from a field
+		 *
+		 * @param field the field being played
+		 */
+		public MinesweeperHint(MinesweeperField field) {
+			this.rows = field.rows();
+			this.cols = field.cols();
+			this.cells = field.copyCells();
+			this.numbers = new int[Math.min(field.size(), field.getFrontierSize() * 8)];
+
+			long[] seen = new long[field.size() + 63 >> 6];
+			for (int index = field.nextFrontier(0); index != -1; index = field.nextFrontier(index + 1)) {
+				int row = field.row(index), col = field.col(index);
+				for (int newRow = row - 1; newRow <= row + 1; newRow++) {
+					for (int newCol = col - 1; newCol <= col + 1; newCol++) {
+						if (!field.contains(newRow, newCol)) {
+							continue;
+						}
+						int newIndex = field.index(newRow, newCol);
+						if (field.isCovered(newIndex) || (seen[newIndex >> 6] & 1L << newIndex) != 0) {
+							continue;
+						}
+						seen[newIndex >> 6] |= 1L << newIndex;
+						this.numbers[this.numberCount++] = newIndex;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Looks for a hint
+		 * <p>
+		 * Safe cells are preferred, so deduced mines are recorded and the search goes
+		 * on until a safe cell is found. If there is none, the first deduced mine that
+		 * is not flagged yet is the hint. If every deduced mine is flagged already,
+		 * the search is done again with the flagged cells recorded as mines.
+		 */
+		public void solve() {
+			if (!this.solve(false)) {
+				this.trustsFlags = this.solve(true);
+			}
+		}
+
+		/**
+		 * Looks for a hint once
+		 *
+		 * @param trustFlags whether the flagged cells are recorded as mines
+		 * @return whether a hint was found
+		 */
+		private boolean solve(boolean trustFlags) {
+			MinesweeperSolver solver = new MinesweeperSolver(this.rows, this.cols);
+			for (int index = 0; index < this.cells.length; index++) {
+				if ((this.cells[index] & MinesweeperField.COVERED_BIT) == 0) {
+					solver.markUncovered(index, this.cells[index] & MinesweeperField.VALUE_MASK);
+				}
+			}
+			for (int i = 0; i < this.numberCount; i++) {
+				solver.watch(this.numbers[i]);
+			}
+			if (trustFlags) {
+				for (int index = 0; index < this.cells.length; index++) {
+					if ((this.cells[index] & MinesweeperField.FLAG_BIT) != 0) {
+						solver.markMine(index);
+					}
+				}
+			}
+
+			for (int next = solver.deduce(); next != -1; next = solver.deduce()) {
+				if (!solver.isDeducedMine()) {
+					this.index = next;
+					this.mine = false;
+					return true;
+				}
+				solver.markMine(next);
+				if (this.index == -1 && (this.cells[next] & MinesweeperField.FLAG_BIT) == 0) {
+					this.index = next;
+					this.mine = true;
+				}
+			}
+			return this.index != -1;
+		}
+
+		/**
+		 * Gets the cell that was found
+		 *
+		 * @return the index of the cell, or -1 if no cell is certain
+		 */
+		public int index() {
+			return this.index;
+		}
+
+		/**
+		 * Gets whether the cell that was found is a mine
+		 *
+		 * @return if the cell is a mine, otherwise it is safe
+		 */
+		public boolean isMine() {
+			return this.mine;
+		}
+
+		/**
+		 * Gets whether the cell that was found is only certain if the flags are right
+		 *
+		 * @return if the cell relies on the flags
+		 */
+		public boolean trustsFlags() {
+			return this.trustsFlags;
+		}
+	}
+
+	/**
+	 * This is the mine heatmap class for the Minesweeper game
+	 * <p>
+	 * The heatmap holds how likely every covered cell is to be a mine, going only
+	 * by the numbers uncovered so far and the number of mines on the board. Flags
+	 * are ignored, as the player may have placed them wrongly.
+	 * <p>
+	 * The exact chances are worked out by counting every way the mines can be
+	 * placed. The frontier of the field, the covered cells next to a number, is
+	 * split into components that share no number, and every way to place mines
+	 * within a component is enumerated separately, counted by how many mines it
+	 * uses. The components are then combined with the cells away from the
+	 * frontier, weighting every total by the number of ways the mines left over can
+	 * be placed on those cells. Counts are kept as {@code double}s rescaled as they
+	 * go, so that only their ratios matter.
+	 * <p>
+	 * The cells are copied when the heatmap is created, on the main thread. It can
+	 * then be worked out on any thread, and gives up once its time budget is used
+	 * up, as the enumeration grows exponentially with the size of a component.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperHeatmap {
+		/**
+		 * The number of buckets the chances are rounded to, not counting bucket 0
+		 * which is used for uncovered cells
+		 */
+		public static final int BUCKETS = 8;
+		/**
+		 * The largest component that is enumerated. Larger components have far too
+		 * many placements to go through in time anyway
+		 */
+		private static final int MAX_COMPONENT_CELLS = 256;
+		/**
+		 * The number of search steps between checks of the time budget
+		 */
+		private static final int CHECK_INTERVAL = 1 << 12;
+
+		/**
+		 * Number of rows on the board
+		 */
+		private final int rows;
+		/**
+		 * Number of columns on the board
+		 */
+		private final int cols;
+		/**
+		 * The packed state of every cell, copied from the field
+		 */
+		private final byte[] cells;
+		/**
+		 * The frontier cells, in order
+		 */
+		private final int[] frontier;
+		/**
+		 * The number of mines on the board
+		 */
+		private final int mines;
+		/**
+		 * The revision of the field the cells were copied from
+		 */
+		private final int revision;
+
+		/**
+		 * The bucket of every cell, once worked out
+		 */
+		private byte[] buckets = null;
+		/**
+		 * When the time budget runs out, in {@link System#nanoTime()} time
+		 */
+		private long deadline = 0L;
+		/**
+		 * The number of search steps taken, used to check the time budget
+		 */
+		private int steps = 0;
+		/**
+		 * Whether the time budget has run out
+		 */
+		private boolean timedOut = false;
+
+		/**
+		 * Copies what is needed to work out the heatmap from a field
+		 *
+		 * @param field the field being played
+		 * @param mines the number of mines on the board
+		 */
+		public MinesweeperHeatmap(MinesweeperField field, int mines) {
+			this.rows = field.rows();
+			this.cols = field.cols();
+			this.cells = field.copyCells();
+			this.mines = mines;
+			this.revision = field.getRevision();
+			this.frontier = new int[field.getFrontierSize()];
+			int count = 0;
+			for (int index = field.nextFrontier(0); index != -1; index = field.nextFrontier(index + 1)) {
+				this.frontier[count++] = index;
+			}
+		}
+
+		/**
+		 * Works out the heatmap
+		 *
+		 * @param budgetNanos how long to spend on it, in nanoseconds
+		 * @return whether the heatmap was worked out, otherwise the time budget ran
+		 *         out, a component was too large, or the numbers do not add up
+		 */
+		public boolean compute(long budgetNanos) {
+			this.deadline = System.nanoTime() + budgetNanos;
+			Component[] components = this.split();
+			if (components == null) {
+				return false;
+			}
+
+			// Enumerate every component, and combine them from both ends, so that the
+			// counts of all other components are known for each of them
+			int total = 0;
+			for (Component component : components) {
+				component.enumerate();
+				if (this.timedOut) {
+					return false;
+				}
+				total += component.size();
+			}
+			double[][] prefix = new double[components.length + 1][], suffix = new double[components.length + 1][];
+			prefix[0] = suffix[components.length] = new double[] { 1.0 };
+			for (int i = 0; i < components.length; i++) {
+				prefix[i + 1] = MinesweeperHeatmap.convolve(prefix[i], components[i].counts);
+			}
+			for (int i = components.length - 1; i >= 0; i--) {
+				suffix[i] = MinesweeperHeatmap.convolve(components[i].counts, suffix[i + 1]);
+			}
+
+			int covered = 0;
+			for (byte cell : this.cells) {
+				if ((cell & MinesweeperField.COVERED_BIT) != 0) {
+					covered++;
+				}
+			}
+			int interior = covered - this.frontier.length;
+			double[] weights = MinesweeperHeatmap.weights(interior, this.mines, total);
+
+			float[] chances = new float[this.cells.length];
+			for (int i = 0; i < components.length; i++) {
+				if (System.nanoTime() > this.deadline) {
+					return false;
+				}
+				if (!components[i].resolve(MinesweeperHeatmap.convolve(prefix[i], suffix[i + 1]), weights, chances)) {
+					return false;
+				}
+			}
+
+			// The mines left over are spread evenly over the cells away from the frontier
+			double interiorMines = 0.0, placements = 0.0;
+			for (int k = 0; k < prefix[components.length].length; k++) {
+				double weight = prefix[components.length][k] * weights[k];
+				interiorMines += weight * (this.mines - k);
+				placements += weight;
+			}
+			if (placements == 0.0) {
+				return false;
+			}
+			float interiorChance = interior == 0 ? 0f : (float) (interiorMines / placements / interior);
+
+			this.buckets = new byte[this.cells.length];
+			long[] onFrontier = new long[this.cells.length + 63 >> 6];
+			for (int index : this.frontier) {
+				onFrontier[index >> 6] |= 1L << index;
+			}
+			for (int index = 0; index < this.cells.length; index++) {
+				if ((this.cells[index] & MinesweeperField.COVERED_BIT) == 0) {
+					continue;
+				}
+				float chance = (onFrontier[index >> 6] & 1L << index) != 0 ? chances[index] : interiorChance;
+				this.buckets[index] = (byte) (1 + Math.round(Math.min(1f, chance) * (MinesweeperHeatmap.BUCKETS - 1)));
+			}
+			return true;
+		}
+
+		/**
+		 * Gets the bucket of every cell
+		 * <p>
+		 * Covered cells are in buckets 1 to {@link #BUCKETS}, from certainly safe to
+		 * certainly a mine. Uncovered cells are in bucket 0.
+		 *
+		 * @return the bucket of every cell, indexed like {@link MinesweeperField}, or
+		 *         {@code null} if the heatmap was not worked out
+		 */
+		public byte[] buckets() {
+			return this.buckets;
+		}
+
+		/**
+		 * Gets the revision of the field the heatmap was worked out for
+		 *
+		 * @return the revision of the field
+		 * @see MinesweeperField#getRevision()
+		 */
+		public int revision() {
+			return this.revision;
+		}
+
+		/**
+		 * Splits the frontier into components, joining the cells around every number
+		 * next to the frontier
+		 *
+		 * @return the components, or {@code null} if one is too large
+		 */
+		private Component[] split() {
+			int[] local = new int[this.cells.length];
+			Arrays.fill(local, -1);
+			int[] parent = new int[this.frontier.length];
+			for (int i = 0; i < this.frontier.length; i++) {
+				local[this.frontier[i]] = i;
+				parent[i] = i;
+			}
+
+			// Every number next to the frontier becomes a constraint over its covered
+			// neighbours, listed once
+			List<int[]> constraints = new ArrayList<>();
+			long[] seen = new long[this.cells.length + 63 >> 6];
+			int[] around = new int[8];
+			for (int index : this.frontier) {
+				int row = index / this.cols, col = index % this.cols;
+				for (int numberRow = row - 1; numberRow <= row + 1; numberRow++) {
+					for (int numberCol = col - 1; numberCol <= col + 1; numberCol++) {
+						int number = numberRow * this.cols + numberCol;
+						if (!this.contains(numberRow, numberCol)
+								|| (this.cells[number] & MinesweeperField.COVERED_BIT) != 0
+								|| (seen[number >> 6] & 1L << number) != 0) {
+							continue;
+						}
+						seen[number >> 6] |= 1L << number;
+
+						int count = 0;
+						for (int newRow = numberRow - 1; newRow <= numberRow + 1; newRow++) {
+							for (int newCol = numberCol - 1; newCol <= numberCol + 1; newCol++) {
+								if (this.contains(newRow, newCol) && local[newRow * this.cols + newCol] != -1) {
+									around[count++] = local[newRow * this.cols + newCol];
+								}
+							}
+						}
+						int[] constraint = new int[count + 1];
+						constraint[0] = this.cells[number] & MinesweeperField.VALUE_MASK;
+						System.arraycopy(around, 0, constraint, 1, count);
+						constraints.add(constraint);
+						for (int i = 2; i <= count; i++) {
+							parent[MinesweeperHeatmap.find(parent, constraint[i])] = MinesweeperHeatmap.find(parent,
+									constraint[1]);
+						}
+					}
+				}
+			}
+
+			// Number the components in order of their first cell, and hand out cells and
+			// constraints to them
+			int[] componentOf = new int[this.frontier.length];
+			int[] rootComponent = new int[this.frontier.length];
+			Arrays.fill(rootComponent, -1);
+			int[] sizes = new int[this.frontier.length];
+			int componentCount = 0;
+			for (int i = 0; i < this.frontier.length; i++) {
+				int root = MinesweeperHeatmap.find(parent, i);
+				if (rootComponent[root] == -1) {
+					rootComponent[root] = componentCount++;
+				}
+				componentOf[i] = rootComponent[root];
+				if (++sizes[componentOf[i]] > MinesweeperHeatmap.MAX_COMPONENT_CELLS) {
+					return null;
+				}
+			}
+			Component[] components = new Component[componentCount];
+			for (int c = 0; c < componentCount; c++) {
+				components[c] = new Component(sizes[c]);
+			}
+			for (int i = 0; i < this.frontier.length; i++) {
+				local[this.frontier[i]] = components[componentOf[i]].addCell(this.frontier[i]);
+			}
+			for (int[] constraint : constraints) {
+				Component component = components[componentOf[constraint[1]]];
+				for (int i = 1; i < constraint.length; i++) {
+					constraint[i] = local[this.frontier[constraint[i]]];
+				}
+				component.addConstraint(constraint);
+			}
+			return components;
+		}
+
+		/**
+		 * Finds the root of a cell in a union-find forest, halving the path on the
+		 * way
+		 *
+		 * @param parent the parent of every cell
+		 * @param i      the cell to find the root of
+		 * @return the root of the cell
+		 */
+		private static int find(int[] parent, int i) {
+			while (parent[i] != i) {
+				parent[i] = parent[parent[i]];
+				i = parent[i];
+			}
+			return i;
+		}
+
+		/**
+		 * Works out the relative number of ways to place the mines left over on the
+		 * cells away from the frontier, for every number of mines on the frontier
+		 * <p>
+		 * These are binomial coefficients, which are far too large to hold directly, so
+		 * they are worked out as logarithms and scaled so that the largest is 1.
+		 *
+		 * @param interior the number of covered cells away from the frontier
+		 * @param mines    the number of mines on the board
+		 * @param frontier the number of frontier cells
+		 * @return the weight for every number of mines on the frontier
+		 */
+		private static double[] weights(int interior, int mines, int frontier) {
+			double[] logFactorials = new double[interior + 1];
+			for (int n = 2; n <= interior; n++) {
+				logFactorials[n] = logFactorials[n - 1] + Math.log(n);
+			}
+
+			double[] weights = new double[frontier + 1];
+			double max = Double.NEGATIVE_INFINITY;
+			for (int k = 0; k <= frontier; k++) {
+				int left = mines - k;
+				weights[k] = left < 0 || left > interior ? Double.NEGATIVE_INFINITY
+						: logFactorials[interior] - logFactorials[left] - logFactorials[interior - left];
+				max = Math.max(max, weights[k]);
+			}
+			for (int k = 0; k <= frontier; k++) {
+				weights[k] = max == Double.NEGATIVE_INFINITY ? 0.0 : Math.exp(weights[k] - max);
+			}
+			return weights;
+		}
+
+		/**
+		 * Convolves two mine count distributions, scaling the result so that its
+		 * largest entry is 1
+		 *
+		 * @param a the first distribution, indexed by number of mines
+		 * @param b the second distribution, indexed by number of mines
+		 * @return the distribution of the sum of both
+		 */
+		private static double[] convolve(double[] a, double[] b) {
+			double[] result = new double[a.length + b.length - 1];
+			double max = 0.0;
+			for (int i = 0; i < a.length; i++) {
+				if (a[i] == 0.0) {
+					continue;
+				}
+				for (int j = 0; j < b.length; j++) {
+					result[i + j] += a[i] * b[j];
+				}
+			}
+			for (double value : result) {
+				max = Math.max(max, value);
+			}
+			if (max > 0.0) {
+				for (int i = 0; i < result.length; i++) {
+					result[i] /= max;
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Gets whether a row,col location is on the board
+		 *
+		 * @param row the row of the cell
+		 * @param col the column of the cell
+		 * @return if the location is on the board
+		 */
+		private boolean contains(int row, int col) {
+			return row >= 0 && row < this.rows && col >= 0 && col < this.cols;
+		}
+
+		/**
+		 * A set of frontier cells that share numbers with each other, but not with any
+		 * other frontier cell
+		 */
+		private final class Component {
+			/**
+			 * The index of every cell in the component, in order
+			 */
+			private final int[] cells;
+			/**
+			 * The number of cells added so far
+			 */
+			private int size = 0;
+			/**
+			 * The numbers around the component. Each holds its value, followed by the
+			 * positions of its covered neighbours in {@link #cells}
+			 */
+			private final List<int[]> constraints = new ArrayList<>();
+
+			/**
+			 * The constraints every cell is part of
+			 */
+			private int[][] cellConstraints;
+			/**
+			 * The number of mines placed so far around every constraint
+			 */
+			private int[] placed;
+			/**
+			 * The number of cells not decided yet around every constraint
+			 */
+			private int[] open;
+			/**
+			 * The cells that are mines in the placement being built, as a stack
+			 */
+			private int[] mineStack;
+			/**
+			 * The number of cells in {@link #mineStack}
+			 */
+			private int mineCount = 0;
+
+			/**
+			 * The relative number of placements, by number of mines
+			 */
+			private double[] counts;
+			/**
+			 * The relative number of placements where each cell is a mine, by cell and
+			 * then number of mines
+			 */
+			private double[][] cellCounts;
+
+			/**
+			 * Creates an empty component
+			 *
+			 * @param capacity the number of cells in the component
+			 */
+			public Component(int capacity) {
+				this.cells = new int[capacity];
+			}
+
+			/**
+			 * Adds a cell to the component
+			 *
+			 * @param index the index of the cell
+			 * @return the position of the cell in the component
+			 */
+			public int addCell(int index) {
+				this.cells[this.size] = index;
+				return this.size++;
+			}
+
+			/**
+			 * Adds a number around the component
+			 *
+			 * @param constraint the value of the number, followed by the positions of its
+			 *                   covered neighbours
+			 */
+			public void addConstraint(int[] constraint) {
+				this.constraints.add(constraint);
+			}
+
+			/**
+			 * Gets the number of cells in the component
+			 *
+			 * @return the number of cells
+			 */
+			public int size() {
+				return this.size;
+			}
+
+			/**
+			 * Counts every placement of mines in the component that matches its
+			 * numbers
+			 */
+			public void enumerate() {
+				int[] constraintCounts = new int[this.size];
+				for (int[] constraint : this.constraints) {
+					for (int i = 1; i < constraint.length; i++) {
+						constraintCounts[constraint[i]]++;
+					}
+				}
+				this.cellConstraints = new int[this.size][];
+				for (int i = 0; i < this.size; i++) {
+					this.cellConstraints[i] = new int[constraintCounts[i]];
+					constraintCounts[i] = 0;
+				}
+				this.placed = new int[this.constraints.size()];
+				this.open = new int[this.constraints.size()];
+				for (int c = 0; c < this.constraints.size(); c++) {
+					int[] constraint = this.constraints.get(c);
+					this.open[c] = constraint.length - 1;
+					for (int i = 1; i < constraint.length; i++) {
+						this.cellConstraints[constraint[i]][constraintCounts[constraint[i]]++] = c;
+					}
+				}
+
+				this.mineStack = new int[this.size];
+				this.counts = new double[this.size + 1];
+				this.cellCounts = new double[this.size][this.size + 1];
+				this.search(0);
+
+				double max = 0.0;
+				for (double count : this.counts) {
+					max = Math.max(max, count);
+				}
+				if (max > 0.0) {
+					for (int k = 0; k <= this.size; k++) {
+						this.counts[k] /= max;
+						for (int i = 0; i < this.size; i++) {
+							this.cellCounts[i][k] /= max;
+						}
+					}
+				}
+			}
+
+			/**
+			 * Decides the cells from a position onwards, trying the cell as safe and
+			 * then as a mine, and backing out as soon as a number can no longer be met
+			 *
+			 * @param position the position of the next cell to decide
+			 */
+			private void search(int position) {
+				MinesweeperHeatmap heatmap = MinesweeperHeatmap.this;
+				if ((++heatmap.steps & MinesweeperHeatmap.CHECK_INTERVAL - 1) == 0
+						&& System.nanoTime() > heatmap.deadline) {
+					heatmap.timedOut = true;
+				}
+				if (heatmap.timedOut) {
+					return;
+				}
+
+				if (position == this.size) {
+					this.counts[this.mineCount]++;
+					for (int i = 0; i < this.mineCount; i++) {
+						this.cellCounts[this.mineStack[i]][this.mineCount]++;
+					}
+					return;
+				}
+
+				for (int mine = 0; mine <= 1; mine++) {
+					if (mine == 1 && this.mineCount == heatmap.mines) {
+						break;
+					}
+					if (!this.fits(position, mine)) {
+						continue;
+					}
+					for (int c : this.cellConstraints[position]) {
+						this.placed[c] += mine;
+						this.open[c]--;
+					}
+					if (mine == 1) {
+						this.mineStack[this.mineCount++] = position;
+					}
+
+					this.search(position + 1);
+
+					if (mine == 1) {
+						this.mineCount--;
+					}
+					for (int c : this.cellConstraints[position]) {
+						this.placed[c] -= mine;
+						this.open[c]++;
+					}
+				}
+			}
+
+			/**
+			 * Checks whether every number around a cell can still be met once the cell
+			 * is decided
+			 *
+			 * @param position the position of the cell
+			 * @param mine     1 if the cell is to be a mine, 0 if it is to be safe
+			 * @return whether the numbers can still be met
+			 */
+			private boolean fits(int position, int mine) {
+				for (int c : this.cellConstraints[position]) {
+					int value = this.constraints.get(c)[0];
+					int placed = this.placed[c] + mine;
+					if (placed > value || placed + this.open[c] - 1 < value) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			/**
+			 * Works out the chance of every cell in the component being a mine
+			 *
+			 * @param others  the counts of all the other components combined, by number
+			 *                of mines
+			 * @param weights the weight for every number of mines on the frontier
+			 * @param chances the chances to fill in, indexed by cell
+			 * @return whether any placement is possible at all
+			 */
+			public boolean resolve(double[] others, double[] weights, float[] chances) {
+				// The weight of each number of mines in this component, over every number
+				// of mines in the other components
+				double[] weighted = new double[this.size + 1];
+				double placements = 0.0;
+				for (int k = 0; k <= this.size; k++) {
+					if (this.counts[k] == 0.0) {
+						continue;
+					}
+					for (int j = 0; j < others.length && k + j < weights.length; j++) {
+						weighted[k] += others[j] * weights[k + j];
+					}
+					placements += this.counts[k] * weighted[k];
+				}
+				if (placements == 0.0) {
+					return false;
+				}
+
+				for (int i = 0; i < this.size; i++) {
+					double mines = 0.0;
+					for (int k = 1; k <= this.size; k++) {
+						mines += this.cellCounts[i][k] * weighted[k];
+					}
+					chances[this.cells[i]] = (float) (mines / placements);
+				}
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * This is the board generation class for the Minesweeper game
+	 * <p>
+	 * This generates the layout of a board from a difficulty, seed and first
+	 * uncovered cell, and holds the result along with how it was generated. It can
+	 * be used from any thread. The seed of the result holds the cell the layout
+	 * was generated for, see {@link MinesweeperLayout#seedFor(long, int)}, so the
+	 * layout can be generated again from the seed alone.
+	 * <p>
+	 * For difficulties that ask for boards without guessing, candidate layouts are
+	 * checked with {@link MinesweeperSolver} in parallel batches on the common
+	 * fork/join pool. The first candidate is generated from the seed itself, and
+	 * later candidates from seeds picked by a random number generator started from
+	 * it. The earliest solvable candidate of a batch is used, so the result only
+	 * depends on the seed, as long as the time budget is not used up.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperGeneration {
+		/**
+		 * The generated layout, with its surrounding mines counted
+		 */
+		private final MinesweeperLayout layout;
+		/**
+		 * The seed the layout was generated from, holding the first uncovered cell
+		 */
+		private final long seed;
+		/**
+		 * The row of the first uncovered cell the layout was generated for
+		 */
+		private final int openRow;
+		/**
+		 * The column of the first uncovered cell the layout was generated for
+		 */
+		private final int openCol;
+		/**
+		 * The number of candidate layouts that were tried
+		 */
+		private final int candidates;
+		/**
+		 * How long the generation took, in nanoseconds
+		 */
+		private final long duration;
+		/**
+		 * Whether the layout is known to be solvable without guessing
+		 */
+		private final boolean noGuess;
+
+		/**
+		 * Creates a generation result
+		 *
+		 * @param layout     the generated layout
+		 * @param seed       the seed the layout was generated from
+		 * @param openRow    the row of the first uncovered cell
+		 * @param openCol    the column of the first uncovered cell
+		 * @param candidates the number of candidate layouts that were tried
+		 * @param duration   how long the generation took, in nanoseconds
+		 * @param noGuess    whether the layout is solvable without guessing
+		 */
+		private MinesweeperGeneration(MinesweeperLayout layout, long seed, int openRow, int openCol, int candidates,
+				long duration, boolean noGuess) {
+			this.layout = layout;
+			this.seed = MinesweeperLayout.seedFor(seed, openRow * layout.cols() + openCol);
+			this.openRow = openRow;
+			this.openCol = openCol;
+			this.candidates = candidates;
+			this.duration = duration;
+			this.noGuess = noGuess;
+		}
+
+		/**
+		 * Generates a board
+		 * <p>
+		 * If the difficulty asks for boards without guessing, candidate layouts are
+		 * tried until one can be solved, or until the time budget is used up, in
+		 * which case the layout of the seed itself is used. Otherwise, the layout of
+		 * the seed is used straight away.
+		 *
+		 * @param difficulty the difficulty of the board
+		 * @param seed       the seed to generate from
+		 * @param avoidRow   the row of the first uncovered cell
+		 * @param avoidCol   the column of the first uncovered cell
+		 * @param budget     the time budget to find a board without guessing, in
+		 *                   nanoseconds
+		 * @return the generated board
+		 */
+		public static MinesweeperGeneration generate(MinesweeperDifficulty difficulty, long seed, int avoidRow,
+				int avoidCol, long budget) {
+			long start = System.nanoTime();
+			if (!difficulty.noGuess()) {
+				MinesweeperLayout layout = MinesweeperLayout.generate(difficulty, seed, avoidRow, avoidCol);
+				layout.countNeighbours(ForkJoinPool.commonPool());
+				return new MinesweeperGeneration(layout, seed, avoidRow, avoidCol, 1, System.nanoTime() - start,
+						false);
+			}
+
+			final int batchSize = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+			final SplittableRandom seeds = new SplittableRandom(seed);
+			final long[] batchSeeds = new long[batchSize];
+			final MinesweeperLayout[] batchLayouts = new MinesweeperLayout[batchSize];
+			final boolean[] batchSolvable = new boolean[batchSize];
+
+			int candidates = 0;
+			MinesweeperLayout first = null;
+			do {
+				for (int i = 0; i < batchSize; i++) {
+					batchSeeds[i] = candidates + i == 0 ? seed : seeds.nextLong();
+				}
+				IntStream.range(0, batchSize).parallel().forEach(i -> {
+					MinesweeperLayout layout = MinesweeperLayout.generate(difficulty, batchSeeds[i], avoidRow,
+							avoidCol);
+					layout.countNeighbours();
+					batchLayouts[i] = layout;
+					batchSolvable[i] = MinesweeperSolver.isSolvable(layout, avoidRow, avoidCol);
+				});
+				if (first == null) {
+					first = batchLayouts[0];
+				}
+
+				for (int i = 0; i < batchSize; i++) {
+					if (batchSolvable[i]) {
+						return new MinesweeperGeneration(batchLayouts[i], batchSeeds[i], avoidRow, avoidCol,
+								candidates + i + 1, System.nanoTime() - start, true);
+					}
+				}
+				candidates += batchSize;
+			} while (System.nanoTime() - start < budget);
+
+			// Out of time, use the layout of the seed itself
+			return new MinesweeperGeneration(first, seed, avoidRow, avoidCol, candidates, System.nanoTime() - start,
+					false);
+		}
+
+		/**
+		 * Generates the board a seed was made for again
+		 * <p>
+		 * This only works for seeds that hold the cell their layout was generated for,
+		 * such as the seed of a finished game, see {@link #seed()}. The layout is the
+		 * same whichever cell is uncovered first, so it may still not fit that cell,
+		 * see {@link #reusedAt(MinesweeperDifficulty, int, int)}.
+		 *
+		 * @param difficulty the difficulty of the board
+		 * @param seed       the seed of the board
+		 * @return the board, or {@code null} if the seed holds no cell of the board
+		 */
+		public static MinesweeperGeneration replay(MinesweeperDifficulty difficulty, long seed) {
+			int index = MinesweeperLayout.cellOf(seed);
+			if (index < 0 || index >= difficulty.rows() * difficulty.cols()) {
+				return null;
+			}
+
+			long start = System.nanoTime();
+			int row = index / difficulty.cols(), col = index % difficulty.cols();
+			MinesweeperLayout layout = MinesweeperLayout.generate(difficulty, seed, row, col);
+			layout.countNeighbours(ForkJoinPool.commonPool());
+			return new MinesweeperGeneration(layout, seed, row, col, 1, System.nanoTime() - start, false);
+		}
+
+		/**
+		 * Gets whether this board can be used for a game whose first uncovered cell is
+		 * somewhere else
+		 * <p>
+		 * The board fits any cell that is a 0 in its layout, as uncovering it opens up
+		 * an area just like the cell it was generated for. If the difficulty asks for
+		 * boards without guessing, the board also has to be solvable from that cell,
+		 * which is checked again with {@link MinesweeperSolver} unless it is the cell
+		 * the board was generated for.
+		 *
+		 * @param difficulty the difficulty of the board
+		 * @param row        the row of the first uncovered cell
+		 * @param col        the column of the first uncovered cell
+		 * @return this board, or {@code null} if it does not fit the cell
+		 */
+		public MinesweeperGeneration reusedAt(MinesweeperDifficulty difficulty, int row, int col) {
+			if (this.layout.isMine(row, col) || this.layout.getValue(row * this.layout.cols() + col) != 0) {
+				return null;
+			}
+			if (difficulty.noGuess() && (row != this.openRow || col != this.openCol)
+					&& !MinesweeperSolver.isSolvable(this.layout, row, col)) {
+				return null;
+			}
+			return this;
+		}
+
+		/**
+		 * Gets the generated layout, with its surrounding mines counted
+		 *
+		 * @return the layout
+		 */
+		public MinesweeperLayout layout() {
+			return this.layout;
+		}
+
+		/**
+		 * Gets the seed the layout was generated from
+		 * <p>
+		 * The seed holds the first uncovered cell the layout was generated for, so
+		 * generating the same difficulty from it gives the same layout again, see
+		 * {@link #replay(MinesweeperDifficulty, long)}.
+		 *
+		 * @return the seed
+		 */
+		public long seed() {
+			return this.seed;
+		}
+
+		/**
+		 * Gets the number of candidate layouts that were tried
+		 *
+		 * @return the number of candidates
+		 */
+		public int candidates() {
+			return this.candidates;
+		}
+
+		/**
+		 * Gets how long the generation took
+		 *
+		 * @return the duration, in nanoseconds
+		 */
+		public long duration() {
+			return this.duration;
+		}
+
+		/**
+		 * Gets whether the layout is known to be solvable without guessing
+		 *
+		 * @return if the layout is solvable without guessing
+		 */
+		public boolean isNoGuess() {
+			return this.noGuess;
+		}
+	}
+
+	/**
+	 * This is the board pool class for the Minesweeper game
+	 * <p>
+	 * This keeps a few boards of every difficulty generated ahead of time, so that
+	 * a game can take one when it starts instead of generating it. The boards are
+	 * generated for a first uncovered cell in the middle of the board, but can be
+	 * used whenever the game is opened on any 0 of their layout, see
+	 * {@link MinesweeperGeneration#reusedAt(MinesweeperDifficulty, int, int)}.
+	 * Games opened on any other cell generate a new board from the seed of the
+	 * pooled board instead.
+	 * <p>
+	 * A single background worker refills the pool of a difficulty once fewer than
+	 * the low-water mark of boards are left, until it is full again. How often a
+	 * game that was played used a board from the pool is counted as the hit rate,
+	 * see {@link #record(MinesweeperDifficulty, boolean)}.
+	 * <p>
+	 * This class is thread-safe.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperPool {
+		/**
+		 * The pool of every difficulty
+		 */
+		private final Map<MinesweeperDifficulty, Bucket> buckets = new HashMap<>();
+		/**
+		 * The worker refilling the pools
+		 */
+		private final ExecutorService worker;
+		/**
+		 * The number of boards kept for every difficulty
+		 */
+		private final int size;
+		/**
+		 * The number of boards left before a pool is refilled
+		 */
+		private final int lowWater;
+		/**
+		 * The time budget to find a board without guessing, in nanoseconds
+		 */
+		private final long noGuessBudget;
+		/**
+		 * The logger to report failures to
+		 */
+		private final Logger logger;
+
+		/**
+		 * Creates a pool for some difficulties, and starts filling it
+		 *
+		 * @param difficulties  the difficulties to keep boards for
+		 * @param size          the number of boards kept for every difficulty, 0 to
+		 *                      keep none
+		 * @param lowWater      the number of boards left before a pool is refilled
+		 * @param noGuessBudget the time budget to find a board without guessing, in
+		 *                      nanoseconds
+		 * @param logger        the logger to report failures to
+		 */
+		public MinesweeperPool(List<MinesweeperDifficulty> difficulties, int size, int lowWater, long noGuessBudget,
+				Logger logger) {
+			this.size = Math.max(0, size);
+			this.lowWater = Math.max(0, Math.min(lowWater, this.size - 1));
+			this.noGuessBudget = noGuessBudget;
+			this.logger = logger;
+			this.worker = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "Minesweeper board pool");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			});
+
+			for (MinesweeperDifficulty difficulty : difficulties) {
+				this.buckets.put(difficulty, new Bucket(Math.max(1, this.size)));
+			}
+			for (MinesweeperDifficulty difficulty : difficulties) {
+				this.refill(difficulty);
+			}
+		}
+
+		/**
+		 * Takes a board from the pool of a difficulty
+		 * <p>
+		 * If the pool is running low, it is refilled in the background.
+		 *
+		 * @param difficulty the difficulty of the board
+		 * @return the board, or {@code null} if the pool is empty
+		 */
+		public MinesweeperGeneration take(MinesweeperDifficulty difficulty) {
+			Bucket bucket = this.buckets.get(difficulty);
+			if (bucket == null) {
+				return null;
+			}
+
+			MinesweeperGeneration generated = bucket.boards.poll();
+			if (bucket.boards.size() <= this.lowWater) {
+				this.refill(difficulty);
+			}
+			return generated;
+		}
+
+		/**
+		 * Records that a game asking the pool for a board is being played
+		 * <p>
+		 * This is only called once the first tile of the game is uncovered, so games
+		 * left before then, and boards taken that did not fit the first tile, do not
+		 * count as hits.
+		 *
+		 * @param difficulty the difficulty of the game
+		 * @param hit        whether the game uses the board taken from the pool
+		 */
+		public void record(MinesweeperDifficulty difficulty, boolean hit) {
+			Bucket bucket = this.buckets.get(difficulty);
+			if (bucket == null) {
+				return;
+			}
+			bucket.requests.incrementAndGet();
+			if (hit) {
+				bucket.hits.incrementAndGet();
+			}
+		}
+
+		/**
+		 * Gets the number of boards ready in the pool of a difficulty
+		 *
+		 * @param difficulty the difficulty
+		 * @return the number of boards ready
+		 */
+		public int available(MinesweeperDifficulty difficulty) {
+			Bucket bucket = this.buckets.get(difficulty);
+			return bucket == null ? 0 : bucket.boards.size();
+		}
+
+		/**
+		 * Gets the number of boards kept for every difficulty
+		 *
+		 * @return the size of the pool of a difficulty
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		/**
+		 * Gets the number of games of a difficulty played that asked the pool for a
+		 * board
+		 *
+		 * @param difficulty the difficulty
+		 * @return the number of requests
+		 */
+		public long requests(MinesweeperDifficulty difficulty) {
+			Bucket bucket = this.buckets.get(difficulty);
+			return bucket == null ? 0L : bucket.requests.get();
+		}
+
+		/**
+		 * Gets the number of games of a difficulty played on a board from the pool
+		 *
+		 * @param difficulty the difficulty
+		 * @return the number of hits
+		 */
+		public long hits(MinesweeperDifficulty difficulty) {
+			Bucket bucket = this.buckets.get(difficulty);
+			return bucket == null ? 0L : bucket.hits.get();
+		}
+
+		/**
+		 * Stops refilling the pools
+		 */
+		public void shutdown() {
+			this.worker.shutdownNow();
+		}
+
+		/**
+		 * Refills the pool of a difficulty in the background, unless it is already
+		 * being refilled
+		 *
+		 * @param difficulty the difficulty
+		 */
+		private void refill(MinesweeperDifficulty difficulty) {
+			Bucket bucket = this.buckets.get(difficulty);
+			if (this.size == 0 || !bucket.refilling.compareAndSet(false, true)) {
+				return;
+			}
+
+			try {
+				this.worker.execute(() -> {
+					try {
+						int middleRow = difficulty.rows() / 2, middleCol = difficulty.cols() / 2;
+						while (bucket.boards.size() < this.size && !Thread.currentThread().isInterrupted()) {
+							bucket.boards.offer(MinesweeperGeneration.generate(difficulty,
+									ThreadLocalRandom.current().nextLong(), middleRow, middleCol, this.noGuessBudget));
+						}
+					} catch (RuntimeException e) {
+						this.logger.log(Level.SEVERE, "Failed to fill the " + difficulty.name() + " board pool", e);
+					} finally {
+						bucket.refilling.set(false);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// Shut down
+				bucket.refilling.set(false);
+			}
+		}
+
+		/**
+		 * This holds the pool of a single difficulty
+		 */
+		private static final class Bucket {
+			/**
+			 * The boards ready to be taken
+			 */
+			private final BlockingQueue<MinesweeperGeneration> boards;
+			/**
+			 * Whether the pool is being refilled
+			 */
+			private final AtomicBoolean refilling = new AtomicBoolean();
+			/**
+			 * The number of games played that asked for a board
+			 */
+			private final AtomicLong requests = new AtomicLong();
+			/**
+			 * The number of games played on a board from the pool
+			 */
+			private final AtomicLong hits = new AtomicLong();
+
+			/**
+			 * Creates the pool of a single difficulty
+			 *
+			 * @param capacity the most boards the pool can hold
+			 */
+			public Bucket(int capacity) {
+				this.boards = new ArrayBlockingQueue<>(capacity);
+			}
+		}
+	}
+
+	/**
+	 * This is the saved game class for the Minesweeper game
+	 * <p>
+	 * A game in progress is saved as a small binary blob, so that it can be kept in
+	 * the properties of the map item, and picked up again after the display is
+	 * unloaded or the server restarts. As the mines of a board only depend on its
+	 * difficulty, seed and the tile its layout was generated for, only those are
+	 * saved, along with which tiles are covered and flagged and how long the game
+	 * has gone on:
+	 * <ol>
+	 * <li>The format version, as a single byte
+	 * <li>The name of the difficulty, as a length and UTF-8 bytes
+	 * <li>The rows, columns and mines of the difficulty, and whether it is
+	 * no-guess
+	 * <li>The seed, as 8 bytes
+	 * <li>The index of the first uncovered tile, the index of the tile the layout
+	 * was generated for, and the time played in milliseconds
+	 * <li>One bit per tile, set if the tile is covered
+	 * <li>One bit per covered tile, set if the tile is flagged
+	 * </ol>
+	 * All numbers other than the seed are written as variable-length integers, 7
+	 * bits to a byte. A game on an 18x18 board takes around 100 bytes.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperSnapshot {
+		/**
+		 * The version of the format written
+		 */
+		private static final int VERSION = 2;
+
+		/**
+		 * The difficulty of the game
+		 */
+		private final MinesweeperDifficulty difficulty;
+		/**
+		 * The seed the game is generated from
+		 */
+		private final long seed;
+		/**
+		 * The index of the first uncovered tile
+		 */
+		private final int firstIndex;
+		/**
+		 * The index of the tile the layout was generated for
+		 */
+		private final int layoutIndex;
+		/**
+		 * How long the game has gone on, in milliseconds
+		 */
+		private final long elapsed;
+		/**
+		 * The covered bitset followed by the flagged bitset, as written
+		 */
+		private final byte[] data;
+		/**
+		 * The position of the covered bitset in {@link #data}
+		 */
+		private final int bitsOffset;
+
+		/**
+		 * Creates a snapshot that was read
+		 *
+		 * @param difficulty the difficulty of the game
+		 * @param seed       the seed the game is generated from
+		 * @param firstIndex  the index of the first uncovered tile
+		 * @param layoutIndex the index of the tile the layout was generated for
+		 * @param elapsed     how long the game has gone on, in milliseconds
+		 * @param data        the data that was read
+		 * @param bitsOffset  the position of the covered bitset in the data
+		 */
+		private MinesweeperSnapshot(MinesweeperDifficulty difficulty, long seed, int firstIndex, int layoutIndex,
+				long elapsed, byte[] data, int bitsOffset) {
+			this.difficulty = difficulty;
+			this.seed = seed;
+			this.firstIndex = firstIndex;
+			this.layoutIndex = layoutIndex;
+			this.elapsed = elapsed;
+			this.data = data;
+			this.bitsOffset = bitsOffset;
+		}
+
+		/**
+		 * Saves a game
+		 * <p>
+		 * The tile the layout was generated for is the one held by the seed, see
+		 * {@link MinesweeperLayout#cellOf(long)}.
+		 *
+		 * @param difficulty the difficulty of the game
+		 * @param seed       the seed the game is generated from
+		 * @param firstIndex the index of the first uncovered tile
+		 * @param elapsed    how long the game has gone on, in milliseconds
+		 * @param field      the field being played
+		 * @return the saved game
+		 */
+		public static byte[] write(MinesweeperDifficulty difficulty, long seed, int firstIndex, long elapsed,
+				MinesweeperField field) {
+			byte[] name = difficulty.name().getBytes(StandardCharsets.UTF_8);
+			int size = field.size();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(32 + name.length + (size + 3) / 4);
+
+			out.write(MinesweeperSnapshot.VERSION);
+			MinesweeperSnapshot.writeVarLong(out, name.length);
+			out.write(name, 0, name.length);
+			MinesweeperSnapshot.writeVarLong(out, difficulty.rows());
+			MinesweeperSnapshot.writeVarLong(out, difficulty.cols());
+			MinesweeperSnapshot.writeVarLong(out, difficulty.mines());
+			out.write(difficulty.noGuess() ? 1 : 0);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				out.write((int) (seed >>> shift));
+			}
+			MinesweeperSnapshot.writeVarLong(out, firstIndex);
+			MinesweeperSnapshot.writeVarLong(out, MinesweeperLayout.cellOf(seed));
+			MinesweeperSnapshot.writeVarLong(out, Math.max(elapsed, 0L));
+
+			// Covered tiles, then flags of the covered tiles only
+			byte[] bits = new byte[(size + 3) / 4];
+			int bit = 0;
+			for (int index = 0; index < size; index++, bit++) {
+				if (field.isCovered(index)) {
+					bits[bit >> 3] |= 1 << (bit & 7);
+				}
+			}
+			for (int index = 0; index < size; index++) {
+				if (field.isCovered(index)) {
+					if (field.isFlagged(index)) {
+						bits[bit >> 3] |= 1 << (bit & 7);
+					}
+					bit++;
+				}
+			}
+			out.write(bits, 0, bit + 7 >> 3);
+			return out.toByteArray();
+		}
+
+		/**
+		 * Reads a saved game
+		 * <p>
+		 * The difficulty is matched against the configured difficulties by name and
+		 * size. If it is no longer configured, the saved difficulty is used for this
+		 * game only. Games saved in the first version of the format are not read, as
+		 * they do not say which tile their layout was generated for.
+		 *
+		 * @param data         the saved game
+		 * @param difficulties the configured difficulties
+		 * @return the saved game
+		 * @throws IllegalArgumentException if the data is not a valid saved game
+		 */
+		public static MinesweeperSnapshot read(byte[] data, List<MinesweeperDifficulty> difficulties) {
+			try {
+				ByteBuffer in = ByteBuffer.wrap(data);
+				int version = in.get();
+				if (version != MinesweeperSnapshot.VERSION) {
+					throw new IllegalArgumentException("Unknown saved game version " + version);
+				}
+				int nameLength = MinesweeperSnapshot.readVarInt(in);
+				if (nameLength > in.remaining()) {
+					throw new IllegalArgumentException("Saved game is cut short");
+				}
+				byte[] nameBytes = new byte[nameLength];
+				in.get(nameBytes);
+				String name = new String(nameBytes, StandardCharsets.UTF_8);
+				int rows = MinesweeperSnapshot.readVarInt(in), cols = MinesweeperSnapshot.readVarInt(in);
+				int mines = MinesweeperSnapshot.readVarInt(in);
+				boolean noGuess = in.get() != 0;
+				long seed = in.getLong();
+				int firstIndex = MinesweeperSnapshot.readVarInt(in);
+				int layoutIndex = MinesweeperSnapshot.readVarInt(in);
+				long elapsed = MinesweeperSnapshot.readVarLong(in);
+
+				MinesweeperDifficulty difficulty = null;
+				for (MinesweeperDifficulty configured : difficulties) {
+					if (configured.name().equals(name) && configured.rows() == rows && configured.cols() == cols
+							&& configured.mines() == mines) {
+						difficulty = configured;
+						break;
+					}
+				}
+				if (difficulty == null) {
+					difficulty = new MinesweeperDifficulty(name, rows, cols, mines, noGuess);
+				}
+
+				int size = difficulty.rows() * difficulty.cols();
+				if (firstIndex >= size || layoutIndex >= size || in.remaining() * 8L < size) {
+					throw new IllegalArgumentException("Saved game does not fit a " + rows + "x" + cols + " board");
+				}
+				if (MinesweeperLayout.cellOf(seed) != layoutIndex) {
+					throw new IllegalArgumentException("Saved game seed does not hold tile " + layoutIndex);
+				}
+
+				// Every covered tile needs a flag bit after the covered bitset
+				MinesweeperSnapshot snapshot = new MinesweeperSnapshot(difficulty, seed, firstIndex, layoutIndex,
+						elapsed, data, in.position());
+				long bits = size;
+				for (int index = 0; index < size; index++) {
+					if (snapshot.readBit(index)) {
+						bits++;
+					}
+				}
+				if (in.remaining() * 8L < bits) {
+					throw new IllegalArgumentException("Saved game is cut short");
+				}
+				return snapshot;
+			} catch (BufferUnderflowException e) {
+				throw new IllegalArgumentException("Saved game is cut short", e);
+			}
+		}
+
+		/**
+		 * Covers and flags the tiles of a field like they were saved
+		 * <p>
+		 * The field must be the size of the difficulty, with its mines placed and
+		 * every tile covered. As the whole game is checked when it is read, this
+		 * always succeeds.
+		 *
+		 * @param field the field to restore
+		 */
+		public void applyTo(MinesweeperField field) {
+			int size = field.size(), bit = size;
+			for (int index = 0; index < size; index++) {
+				if (this.readBit(index)) {
+					if (this.readBit(bit++)) {
+						field.setFlagged(index, true);
+					}
+				} else {
+					field.setCovered(index, false);
+				}
+			}
+		}
+
+		/**
+		 * Gets the saved game as it was read
+		 *
+		 * @return the saved game
+		 */
+		public byte[] data() {
+			return this.data;
+		}
+
+		/**
+		 * Gets the difficulty of the game
+		 *
+		 * @return the difficulty
+		 */
+		public MinesweeperDifficulty difficulty() {
+			return this.difficulty;
+		}
+
+		/**
+		 * Gets the seed the game is generated from
+		 *
+		 * @return the seed
+		 */
+		public long seed() {
+			return this.seed;
+		}
+
+		/**
+		 * Gets the first uncovered tile
+		 *
+		 * @return the index of the tile
+		 */
+		public int firstIndex() {
+			return this.firstIndex;
+		}
+
+		/**
+		 * Gets the tile the layout of the game was generated for
+		 * <p>
+		 * This is the first uncovered tile, unless the board was made ahead of time
+		 * for another tile.
+		 *
+		 * @return the index of the tile
+		 */
+		public int layoutIndex() {
+			return this.layoutIndex;
 		}
 
 		/**
-		 * {@inheritDoc}
-		 * <p>
-		 * We unset the pseudo-state {@link #pressed} and {@link #focused}, and trigger
-		 * a redraw using {@link MapWidget#invalidate()}.
+		 * Gets how long the game has gone on
+		 *
+		 * @return the time played, in milliseconds
 		 */
-		@Override
-		public void onBlur() {
-			this.pressed = false;
-			this.focused = false;
-			this.invalidate();
+		public long elapsed() {
+			return this.elapsed;
 		}
 
 		/**
-		 * {@inheritDoc}
-		 * <p>
-		 * We set the pseudo-state {@link #focused}, and trigger a redraw using
-		 * {@link MapWidget#invalidate()}.
+		 * Reads a single bit after the header
+		 *
+		 * @param bit the position of the bit, within the data
+		 * @return whether the bit is set
 		 */
-		@Override
-		public void onFocus() {
-			this.focused = true;
-			this.invalidate();
+		private boolean readBit(int bit) {
+			return (this.data[this.bitsOffset + (bit >> 3)] & 1 << (bit & 7)) != 0;
 		}
 
 		/**
-		 * Attempts to uncover a tile
-		 * <p>
-		 * If the widget is not attached to a display, it is already uncovered, or it
-		 * has a flag, nothing happens.
-		 * <p>
-		 * Otherwise, it is set to uncovered, a sound is played, the callback function
-		 * {@link #onUncover()} is called, and a redraw is triggered using
-		 * {@link MapWidget#invalidate()}.
+		 * Writes a variable-length integer, 7 bits to a byte, lowest bits first
+		 *
+		 * @param out   the stream to write to
+		 * @param value the value to write, not negative
 		 */
-		public void tryUncover() {
-			if (this.display == null || !this.covered || this.flagged) {
-				return;
-			}
-
-			this.covered = false;
-
-			if (this.mine) {
-				this.display.playSound(SoundEffect.fromName("entity.generic.explode"), 1.0f, 1.0f);
-			} else {
-				this.display.playSound(SoundEffect.fromName("block.stone.break"), 1.0f, 1.0f);
+		private static void writeVarLong(ByteArrayOutputStream out, long value) {
+			while ((value & ~0x7FL) != 0) {
+				out.write((int) (value & 0x7F | 0x80));
+				value >>>= 7;
 			}
-
-			this.onUncover();
-			this.invalidate();
+			out.write((int) value);
 		}
 
 		/**
-		 * Gets whether the tile is covered or not
+		 * Reads a variable-length integer
 		 *
-		 * @return if the tile is covered
+		 * @param in the buffer to read from
+		 * @return the value read
+		 * @throws IllegalArgumentException if the value is too long
 		 */
-		public boolean isCovered() {
-			return this.covered;
+		private static long readVarLong(ByteBuffer in) {
+			long value = 0L;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = in.get();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IllegalArgumentException("Saved game has an invalid number");
 		}
 
 		/**
-		 * Called when a tile is successfully uncovered
-		 * <p>
-		 * This method is can be overridden to handle post-tile-uncover logic.
+		 * Reads a variable-length integer that fits an {@code int}
+		 *
+		 * @param in the buffer to read from
+		 * @return the value read
+		 * @throws IllegalArgumentException if the value does not fit an {@code int}
 		 */
-		public void onUncover() {
+		private static int readVarInt(ByteBuffer in) {
+			long value = MinesweeperSnapshot.readVarLong(in);
+			if (value < 0 || value > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Saved game has an invalid number");
+			}
+			return (int) value;
 		}
+	}
 
+	/**
+	 * This is the input class for the Minesweeper game
+	 * <p>
+	 * This holds a mouse-related input on the display, as an action and the
+	 * position on the display where it happened. The display keeps a single
+	 * instance and sets it again for every input, so that passing input down to
+	 * the widgets does not create any garbage.
+	 * <p>
+	 * Because the instance is reused, widgets must not keep a reference to it after
+	 * handling the input.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperInput {
 		/**
-		 * Gets whether the tile is a mine or not
-		 *
-		 * @return if the tile is a mine
+		 * The action of the input
 		 */
-		public boolean isMine() {
-			return this.mine;
-		}
+		private InputAction action = InputAction.HOVER;
+		/**
+		 * The position of the input on the display
+		 */
+		private int x, y;
 
 		/**
-		 * Sets whether the tile is a mine or not
+		 * Sets the contents of this input
 		 *
-		 * @param mine if the tile should be a mine
+		 * @param action the action of the input
+		 * @param x      the X-position of the input on the display
+		 * @param y      the Y-position of the input on the display
+		 * @return this input
 		 */
-		public void setMine(boolean mine) {
-			this.mine = mine;
-			this.invalidate();
+		public MinesweeperInput set(InputAction action, int x, int y) {
+			this.action = action;
+			this.x = x;
+			this.y = y;
+			return this;
 		}
 
 		/**
-		 * Gets the numeric value shown on the tile
+		 * Gets the action of the input
 		 *
-		 * @return the numeric value on the tile
+		 * @return the action
 		 */
-		public int getValue() {
-			return this.value;
+		public InputAction action() {
+			return this.action;
 		}
 
 		/**
-		 * Sets the numeric value shown on the tile
+		 * Gets the X-position of the input on the display
 		 *
-		 * @param value the new numeric value of the tile
+		 * @return the X-position
 		 */
-		public void setValue(int value) {
-			this.value = value;
-			this.invalidate();
+		public int x() {
+			return this.x;
 		}
 
 		/**
-		 * Gets whether the tile has a flag or not
+		 * Gets the Y-position of the input on the display
 		 *
-		 * @return if the tile has a flag
+		 * @return the Y-position
 		 */
-		public boolean isFlagged() {
-			return this.flagged;
+		public int y() {
+			return this.y;
 		}
+	}
 
+	/**
+	 * This is the base dialog class for the Minesweeper game
+	 * <p>
+	 * This is a {@link MapWidgetWindow} class. Use this class to understand how to
+	 * use {@code MapWidgetWindow}s.
+	 * <p>
+	 * This widget is shown on top of the board, and receives all mouse-related
+	 * input while it is open.
+	 * <p>
+	 * This class can have any visibility, as long as it is visible to the display
+	 * class.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static abstract class MinesweeperDialog extends MapWidgetWindow {
 		/**
-		 * Attempts to set whether the tile has a flag or not
-		 * <p>
-		 * If the widget is not attached to a display, or the tile is already uncovered,
-		 * nothing happens.
-		 * <p>
-		 * Otherwise, the state is updated, a sound is played, and a redraw is triggered
-		 * using {@link MapWidget#invalidate()}.
+		 * Handles a mouse-related input on the display
 		 *
-		 * @param flagged if the tile should be flagged or not
+		 * @param input the input that was received
 		 */
-		public void trySetFlagged(boolean flagged) {
-			if (this.display == null || !this.covered) {
-				return;
-			}
+		public abstract void handleInput(MinesweeperInput input);
 
-			this.flagged = flagged;
-			this.display.playSound(SoundEffect.fromName(flagged ? "block.wool.place" : "block.wool.break"), 1.0f, 1.0f);
-			this.invalidate();
+		/**
+		 * Closes the dialog
+		 */
+		public void close() {
+			this.removeWidget();
+			this.onClose();
 		}
 
 		/**
-		 * Sets whether the tile has a flag or not
-		 *
-		 * @param flagged if the tile should have a flag
+		 * Callback after the dialog has been closed
+		 * <p>
+		 * This method should be overridden to handle the post-close action.
 		 */
-		private void setFlagged(boolean flagged) {
-			if (!this.covered) {
-				return;
-			}
-
-			this.flagged = flagged;
-			this.invalidate();
+		public void onClose() {
 		}
 	}
 
@@ -1443,11 +6605,19 @@ public class Main extends JavaPlugin {
 	 *
 	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
 	 */
-	private static class MinesweeperDifficultySelectDialog extends MapWidgetWindow {
+	private static class MinesweeperDifficultySelectDialog extends MinesweeperDialog {
+		/**
+		 * The difficulties that can be selected
+		 */
+		private final List<MinesweeperDifficulty> difficulties;
+		/**
+		 * The index of the currently selected difficulty
+		 */
+		private int selectedIndex = 0;
 		/**
 		 * The currently selected difficulty
 		 */
-		protected MinesweeperDifficulty selected = MinesweeperDifficulty.BEGINNER;
+		protected MinesweeperDifficulty selected;
 
 		/**
 		 * The selector widget
@@ -1460,8 +6630,12 @@ public class Main extends JavaPlugin {
 
 		/**
 		 * Creates the dialog
+		 *
+		 * @param difficulties the difficulties that can be selected, must not be empty
 		 */
-		public MinesweeperDifficultySelectDialog() {
+		public MinesweeperDifficultySelectDialog(List<MinesweeperDifficulty> difficulties) {
+			this.difficulties = difficulties;
+			this.selected = difficulties.get(0);
 			this.setBounds(15, 22, 95, 58);
 			this.setBackgroundColor(MapColorPalette.getColor(114, 121, 175));
 			this.setDepthOffset(4);
@@ -1527,39 +6701,38 @@ public class Main extends JavaPlugin {
 		/**
 		 * {@inheritDoc}
 		 * <p>
-		 * When the correct mouse-related status event is received, the current widget
-		 * is activated, and the mouse location is within bounds of the widget:
+		 * When the current widget is activated, and the mouse location is within
+		 * bounds of the widget:
 		 * <p>
 		 * <ul>
 		 * <li>If it is a hover, focus the hovered child widget
 		 * <li>If it is a left-click, focus and activate the child widget
 		 * </ul>
-		 * <p>
-		 * It is important that the status event is sent to the {@code MapWidget} parent
-		 * ({@code super}) if the event is not handled, otherwise it will not propagate.
 		 *
 		 * @see {@link Main#isInBounds(MapWidget, int, int)} for more information on how
 		 *      the in-bounds check is done
 		 */
 		@Override
-		public void onStatusChanged(MapStatusEvent event) {
-			if (!this.isActivated() || !Arrays.asList("LEFT_CLICK", "RIGHT_CLICK", "HOVER").contains(event.getName())) {
+		public void handleInput(MinesweeperInput input) {
+			if (!this.isActivated()) {
 				return;
 			}
-			Point clicked = event.getArgument(Point.class);
-			int clickedX = clicked.x, clickedY = clicked.y;
 
+			int clickedX = input.x();
+			int clickedY = input.y();
 			if (!Main.isInBounds(this, clickedX, clickedY)) {
 				return;
 			}
 
-			if (event.getName().equals("HOVER")) {
+			switch (input.action()) {
+			case HOVER:
 				if (Main.isInBounds(this.selector, clickedX, clickedY)) {
 					this.selector.focus();
 				} else if (Main.isInBounds(this.button, clickedX, clickedY)) {
 					this.button.focus();
 				}
-			} else if (event.getName().equals("LEFT_CLICK")) {
+				break;
+			case LEFT_CLICK:
 				if (Main.isInBounds(this.selector, clickedX, clickedY)) {
 					this.selector.focus();
 					this.selector.activate();
@@ -1567,31 +6740,18 @@ public class Main extends JavaPlugin {
 					this.button.focus();
 					this.button.activate();
 				}
-			}
-		}
-
-		/**
-		 * Cycles to the next difficulty setting
-		 */
-		private void cycleNext() {
-			switch (this.selected) {
-			case BEGINNER:
-				this.selected = MinesweeperDifficulty.INTERMEDIATE;
 				break;
-			case INTERMEDIATE:
-				this.selected = MinesweeperDifficulty.EXPERT;
-				break;
-			case EXPERT:
-				this.selected = MinesweeperDifficulty.BEGINNER;
+			default:
 				break;
 			}
 		}
 
 		/**
-		 * Closes the widget
+		 * Cycles to the next difficulty setting
 		 */
-		public void close() {
-			this.removeWidget();
+		private void cycleNext() {
+			this.selectedIndex = (this.selectedIndex + 1) % this.difficulties.size();
+			this.selected = this.difficulties.get(this.selectedIndex);
 		}
 
 		/**
@@ -1610,6 +6770,81 @@ public class Main extends JavaPlugin {
 		}
 	}
 
+	/**
+	 * This is the generating dialog class for the Minesweeper game
+	 * <p>
+	 * This is a {@link MapWidgetWindow} class. Use this class to understand how to
+	 * use {@code MapWidgetWindow}s.
+	 * <p>
+	 * This widget is shown while the mines of a board are generated. It has
+	 * nothing to interact with, and only closes when the {@code BACK} key is
+	 * pressed.
+	 * <p>
+	 * This class can have any visibility, as long as it is visible to the display
+	 * class.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static class MinesweeperGeneratingDialog extends MinesweeperDialog {
+		/**
+		 * Creates the dialog
+		 */
+		public MinesweeperGeneratingDialog() {
+			this.setBounds(15, 37, 95, 28);
+			this.setBackgroundColor(MapColorPalette.getColor(114, 121, 175));
+			this.setDepthOffset(4);
+			this.setFocusable(true);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * In here, we activate the dialog window, then add the required widgets.
+		 */
+		@Override
+		public void onAttached() {
+			super.onAttached();
+			this.activate();
+
+			// Label
+			this.addWidget(new MapWidgetText().setText("Generating...").setBounds(5, 5, 80, 13));
+
+			// Hint
+			this.addWidget(new MapWidgetText().setText("Press back to cancel").setFont(MapFont.TINY).setBounds(5, 17,
+					80, 7));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * If the {@code BACK} key is pressed at any time while the dialog is activated,
+		 * close it.
+		 * <p>
+		 * It is important that the key press event is sent to the {@code MapWidget}
+		 * parent ({@code super}) if the event is not handled, otherwise it will not
+		 * propagate.
+		 *
+		 * @param event the key press event that was received
+		 */
+		@Override
+		public void onKeyPressed(MapKeyEvent event) {
+			if (event.getKey() == MapPlayerInput.Key.BACK && this.isActivated()) {
+				this.close();
+				return;
+			}
+			super.onKeyPressed(event);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * There is nothing to interact with, so the input is ignored.
+		 */
+		@Override
+		public void handleInput(MinesweeperInput input) {
+		}
+	}
+
 	/**
 	 * This is the game end dialog class for the Minesweeper game
 	 * <p>
@@ -1623,7 +6858,7 @@ public class Main extends JavaPlugin {
 	 *
 	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
 	 */
-	private static class MinesweeperWinLoseDialog extends MapWidgetWindow {
+	private static class MinesweeperWinLoseDialog extends MinesweeperDialog {
 		/**
 		 * Whether the game ended in a win or not
 		 */
@@ -1640,6 +6875,10 @@ public class Main extends JavaPlugin {
 		 * The number of mines on the board
 		 */
 		private final int mines;
+		/**
+		 * The seed the board was generated from
+		 */
+		private final long seed;
 
 		/**
 		 * The "Back to Title" button widget
@@ -1653,12 +6892,14 @@ public class Main extends JavaPlugin {
 		 * @param time  the time from start to end
 		 * @param flags the number of flags placed on the board
 		 * @param mines the number of mines on the board
+		 * @param seed  the seed the board was generated from
 		 */
-		public MinesweeperWinLoseDialog(boolean win, Duration time, int flags, int mines) {
+		public MinesweeperWinLoseDialog(boolean win, Duration time, int flags, int mines, long seed) {
 			this.win = win;
 			this.time = time;
 			this.flags = flags;
 			this.mines = mines;
+			this.seed = seed;
 
 			this.setBounds(15, 22, 95, 58);
 			this.setBackgroundColor(MapColorPalette.getColor(114, 121, 175));
@@ -1689,6 +6930,10 @@ public class Main extends JavaPlugin {
 			this.addWidget(new MapWidgetText().setText(String.format("Flags placed: %d/%d", this.flags, this.mines))
 					.setFont(MapFont.TINY).setBounds(5, 24, 80, 13));
 
+			// Seed
+			this.addWidget(new MapWidgetText().setText(String.format("Seed: %016x", this.seed)).setFont(MapFont.TINY)
+					.setBounds(5, 31, 80, 7));
+
 			// Button
 			this.button = this.addWidget(new MapWidgetButton() {
 				@Override
@@ -1722,59 +6967,46 @@ public class Main extends JavaPlugin {
 		/**
 		 * {@inheritDoc}
 		 * <p>
-		 * When the correct mouse-related status event is received, the current widget
-		 * is activated, and the mouse location is within bounds of the widget:
+		 * When the current widget is activated, and the mouse location is within
+		 * bounds of the widget:
 		 * <p>
 		 * <ul>
 		 * <li>If it is a hover, focus the hovered child widget
 		 * <li>If it is a left-click, focus and activate the child widget
 		 * </ul>
-		 * <p>
-		 * It is important that the status event is sent to the {@code MapWidget} parent
-		 * ({@code super}) if the event is not handled, otherwise it will not propagate.
 		 *
 		 * @see {@link Main#isInBounds(MapWidget, int, int)} for more information on how
 		 *      the in-bounds check is done
 		 */
 		@Override
-		public void onStatusChanged(MapStatusEvent event) {
-			if (!this.isActivated() || !Arrays.asList("LEFT_CLICK", "RIGHT_CLICK", "HOVER").contains(event.getName())) {
+		public void handleInput(MinesweeperInput input) {
+			if (!this.isActivated()) {
 				return;
 			}
-			Point clicked = event.getArgument(Point.class);
-			int clickedX = clicked.x, clickedY = clicked.y;
 
+			int clickedX = input.x();
+			int clickedY = input.y();
 			if (!Main.isInBounds(this, clickedX, clickedY)) {
 				return;
 			}
 
-			if (event.getName().equals("HOVER")) {
+			switch (input.action()) {
+			case HOVER:
 				if (Main.isInBounds(this.button, clickedX, clickedY)) {
 					this.button.focus();
 				}
-			} else if (event.getName().equals("LEFT_CLICK")) {
+				break;
+			case LEFT_CLICK:
 				if (Main.isInBounds(this.button, clickedX, clickedY)) {
 					this.button.focus();
 					this.button.activate();
 				}
+				break;
+			default:
+				break;
 			}
 		}
 
-		/**
-		 * Closes the dialog
-		 */
-		public void close() {
-			this.removeWidget();
-			this.onClose();
-		}
-
-		/**
-		 * Callback after the dialog has been closed
-		 * <p>
-		 * This method should be overridden to handle the post-close action.
-		 */
-		public void onClose() {
-		}
 	}
 
 	/**
@@ -1802,24 +7034,104 @@ public class Main extends JavaPlugin {
 	}
 
 	/**
-	 * This represents the difficulty of the Minesweeper game
+	 * This represents the action of a mouse-related input on the display
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private enum InputAction {
+		/**
+		 * The player looked at a position
+		 */
+		HOVER,
+		/**
+		 * The player left-clicked a position
+		 */
+		LEFT_CLICK,
+		/**
+		 * The player right-clicked a position
+		 */
+		RIGHT_CLICK
+	}
+
+	/**
+	 * This represents a sound of the Minesweeper game
+	 * <p>
+	 * The {@link SoundEffect} of each sound is looked up once, when the sounds are
+	 * first used, instead of every time the sound is played. More important sounds
+	 * come first, as they are played first when there are too many sounds in a
+	 * tick.
 	 *
 	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
 	 */
-	private enum MinesweeperDifficulty {
+	private enum MinesweeperSound {
+		/**
+		 * The sound of uncovering a mine
+		 */
+		EXPLODE("entity.generic.explode"),
+		/**
+		 * The sound of uncovering a tile
+		 */
+		UNCOVER("block.stone.break"),
+		/**
+		 * The sound of placing a flag
+		 */
+		FLAG("block.wool.place"),
+		/**
+		 * The sound of removing a flag
+		 */
+		UNFLAG("block.wool.break");
+
+		/**
+		 * The sound effect that is played
+		 */
+		private final SoundEffect effect;
+
+		/**
+		 * Creates a sound
+		 *
+		 * @param name the name of the sound effect
+		 */
+		private MinesweeperSound(String name) {
+			this.effect = SoundEffect.fromName(name);
+		}
+
 		/**
-		 * The easy difficulty
+		 * Gets the sound effect that is played
+		 *
+		 * @return the sound effect
 		 */
-		BEGINNER(9, 9, 10),
+		public SoundEffect effect() {
+			return this.effect;
+		}
+	}
+
+	/**
+	 * This represents the difficulty of the Minesweeper game
+	 * <p>
+	 * The difficulties are read from the {@code difficulties} section of the
+	 * configuration, so any board size can be played. Boards that do not fit on
+	 * the display are shown through a viewport, see {@link MinesweeperGrid}.
+	 *
+	 * @author Cyrus Mian Xi Li (bbayu/bbayu123)
+	 */
+	private static final class MinesweeperDifficulty {
 		/**
-		 * The normal difficulty
+		 * The largest number of rows or columns a difficulty can have, which allows
+		 * boards of up to about a million tiles
 		 */
-		INTERMEDIATE(14, 14, 30),
+		private static final int MAX_SIDE = 1024;
 		/**
-		 * The hard difficulty
+		 * The difficulties used when none are configured
 		 */
-		EXPERT(18, 18, 69);
+		private static final List<MinesweeperDifficulty> DEFAULTS = Arrays.asList(
+				new MinesweeperDifficulty("BEGINNER", 9, 9, 10, false),
+				new MinesweeperDifficulty("INTERMEDIATE", 14, 14, 30, false),
+				new MinesweeperDifficulty("EXPERT", 18, 18, 69, false));
 
+		/**
+		 * Name of the difficulty, shown in the difficulty selector
+		 */
+		private final String name;
 		/**
 		 * Number of rows in the difficulty
 		 */
@@ -1832,18 +7144,92 @@ public class Main extends JavaPlugin {
 		 * Number of mines in the difficulty
 		 */
 		private final int mines;
+		/**
+		 * Whether boards of the difficulty must be solvable without guessing
+		 */
+		private final boolean noGuess;
 
 		/**
 		 * Creates a difficulty
+		 * <p>
+		 * There must be room for all the mines outside the area around the first tile
+		 * that is uncovered, which is up to 3x3 tiles, or fewer on boards less than 3
+		 * tiles wide or high. The rows and columns are capped at {@link #MAX_SIDE}, so
+		 * that the board of a game can always be allocated.
 		 *
-		 * @param rows  the number of rows
-		 * @param cols  the number of columns
-		 * @param mines the number of mines
+		 * @param name    the name of the difficulty
+		 * @param rows    the number of rows
+		 * @param cols    the number of columns
+		 * @param mines   the number of mines
+		 * @param noGuess whether boards must be solvable without guessing
+		 * @throws IllegalArgumentException if the size or number of mines is invalid
 		 */
-		private MinesweeperDifficulty(int rows, int cols, int mines) {
+		public MinesweeperDifficulty(String name, int rows, int cols, int mines, boolean noGuess) {
+			if (rows < 1 || cols < 1 || rows > MinesweeperDifficulty.MAX_SIDE
+					|| cols > MinesweeperDifficulty.MAX_SIDE) {
+				throw new IllegalArgumentException("Invalid board size " + rows + "x" + cols);
+			}
+			if (mines < 0 || mines > rows * cols - Math.min(rows, 3) * Math.min(cols, 3)) {
+				throw new IllegalArgumentException(
+						"Cannot fit " + mines + " mines on a " + rows + "x" + cols + " board");
+			}
+			this.name = name;
 			this.rows = rows;
 			this.cols = cols;
 			this.mines = mines;
+			this.noGuess = noGuess;
+		}
+
+		/**
+		 * Loads the difficulties from a configuration section
+		 * <p>
+		 * Every key in the section is a difficulty, holding a {@code rows},
+		 * {@code cols} and {@code mines} value, and optionally {@code no-guess}.
+		 * Names are not case-sensitive, as saved games find their difficulty by name.
+		 * Invalid difficulties, and difficulties whose name is already used, are
+		 * logged and skipped. If no valid difficulty is found, the default
+		 * difficulties are used.
+		 *
+		 * @param section the section holding the difficulties, or {@code null}
+		 * @param logger  the logger to report invalid difficulties to
+		 * @return the difficulties, in the order they are configured
+		 */
+		public static List<MinesweeperDifficulty> load(ConfigurationSection section, Logger logger) {
+			if (section == null) {
+				return MinesweeperDifficulty.DEFAULTS;
+			}
+
+			List<MinesweeperDifficulty> difficulties = new ArrayList<>();
+			Set<String> names = new HashSet<>();
+			for (String key : section.getKeys(false)) {
+				ConfigurationSection entry = section.getConfigurationSection(key);
+				if (entry == null) {
+					logger.warning("Difficulty '" + key + "' is not a section, skipping");
+					continue;
+				}
+				String name = key.toUpperCase(Locale.ROOT);
+				if (names.contains(name)) {
+					logger.warning("Difficulty '" + key + "' is already configured, skipping");
+					continue;
+				}
+				try {
+					difficulties.add(new MinesweeperDifficulty(name, entry.getInt("rows", 0), entry.getInt("cols", 0),
+							entry.getInt("mines", -1), entry.getBoolean("no-guess", false)));
+					names.add(name);
+				} catch (IllegalArgumentException e) {
+					logger.warning("Difficulty '" + key + "' is invalid, skipping: " + e.getMessage());
+				}
+			}
+			return difficulties.isEmpty() ? MinesweeperDifficulty.DEFAULTS : difficulties;
+		}
+
+		/**
+		 * Gets the name of the difficulty
+		 *
+		 * @return the name
+		 */
+		public String name() {
+			return this.name;
 		}
 
 		/**
@@ -1872,5 +7258,14 @@ public class Main extends JavaPlugin {
 		public int mines() {
 			return this.mines;
 		}
+
+		/**
+		 * Gets whether boards of the difficulty must be solvable without guessing
+		 *
+		 * @return if boards must be solvable without guessing
+		 */
+		public boolean noGuess() {
+			return this.noGuess;
+		}
 	}
 }